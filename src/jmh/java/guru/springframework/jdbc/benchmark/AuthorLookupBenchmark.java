@@ -0,0 +1,44 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.domain.Author;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the named query, Criteria and native implementations of the author name lookup,
+ * and the primary key lookup.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorLookupBenchmark {
+
+    @Benchmark
+    public Author findAuthorByName(DaoState state) {
+        return state.authorDao.findAuthorByName("Craig", "Walls");
+    }
+
+    @Benchmark
+    public Author findAuthorByNameCriteria(DaoState state) {
+        return state.authorDao.findAuthorByNameCriteria("Craig", "Walls");
+    }
+
+    @Benchmark
+    public Author findAuthorByNameNative(DaoState state) {
+        return state.authorDao.findAuthorByNameNative("Craig", "Walls");
+    }
+
+    @Benchmark
+    public Author getById(DaoState state) {
+        return state.authorDao.getById(1L);
+    }
+}
@@ -0,0 +1,63 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.domain.Author;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead style last name prefix lookups against a seeded author table.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorPrefixSearchBenchmark {
+
+    private static final int SEEDED_AUTHORS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class SeededAuthors {
+
+        @Setup(Level.Trial)
+        public void seed(DaoState state) {
+            List<Author> authors = new ArrayList<>();
+            for (int i = 0; i < SEEDED_AUTHORS; i++) {
+                Author author = new Author();
+                author.setFirstName("Seed" + (i % 100));
+                author.setLastName(String.format("Prefix%06d", i));
+                authors.add(author);
+            }
+            state.authorDao.saveAllAuthors(authors);
+        }
+    }
+
+    private static String randomPrefix() {
+        // matches 10 of the seeded last names
+        return String.format("Prefix%05d", ThreadLocalRandom.current().nextInt(SEEDED_AUTHORS / 10));
+    }
+
+    @Benchmark
+    public List<Author> searchAuthorsByLastNamePrefix(DaoState state, SeededAuthors seeded) {
+        return state.authorDao.searchAuthorsByLastNamePrefix(randomPrefix(), 10);
+    }
+
+    @Benchmark
+    public List<Author> listAuthorByLstNameLike(DaoState state, SeededAuthors seeded) {
+        return state.authorDao.listAuthorByLstNameLike(randomPrefix());
+    }
+}
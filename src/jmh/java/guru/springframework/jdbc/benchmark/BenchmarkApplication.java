@@ -0,0 +1,32 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.SdjpaJdbcApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application against the embedded H2 database (MySQL mode) configured in
+ * application.properties, with statement logging turned off so it does not skew the numbers.
+ */
+final class BenchmarkApplication {
+
+    private static final String[] DEFAULT_PROPERTIES = {
+            "spring.main.banner-mode=off",
+            "spring.jpa.properties.hibernate.show_sql=false",
+            "spring.jpa.properties.hibernate.format_sql=false",
+            "logging.level.root=warn",
+            "logging.level.org.hibernate.type.descriptor.sql=warn"
+    };
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(SdjpaJdbcApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(DEFAULT_PROPERTIES)
+                .properties(properties)
+                .run();
+    }
+}
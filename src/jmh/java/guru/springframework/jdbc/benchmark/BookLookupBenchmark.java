@@ -0,0 +1,49 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.domain.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the named query, Criteria and native implementations of the book title lookup,
+ * the isbn natural id lookup and the primary key lookup.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookLookupBenchmark {
+
+    @Benchmark
+    public Book findBookByTitle(DaoState state) {
+        return state.bookDao.findBookByTitle("Clean Code");
+    }
+
+    @Benchmark
+    public Book findBookByTitleCriteria(DaoState state) {
+        return state.bookDao.findBookByTitleCriteria("Clean Code");
+    }
+
+    @Benchmark
+    public Book findBookByTitleNative(DaoState state) {
+        return state.bookDao.findBookByTitleNative("Clean Code");
+    }
+
+    @Benchmark
+    public Book findByISBN(DaoState state) {
+        return state.bookDao.findByISBN("978-0134494166");
+    }
+
+    @Benchmark
+    public Book getById(DaoState state) {
+        return state.bookDao.getById(3L);
+    }
+}
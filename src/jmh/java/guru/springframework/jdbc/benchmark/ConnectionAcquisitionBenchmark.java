@@ -0,0 +1,81 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.domain.Author;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A service operation of four DAO calls, once with a session per call and once inside a Spring managed
+ * transaction the DAOs join. The connections counter reports the JDBC connections the sessions acquired,
+ * compare it with the requests counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionAcquisitionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Transactions {
+        TransactionTemplate transactionTemplate;
+        Statistics statistics;
+
+        @Setup(Level.Trial)
+        public void setUp(DaoState state) {
+            transactionTemplate = new TransactionTemplate(state.context.getBean(PlatformTransactionManager.class));
+            transactionTemplate.setReadOnly(true);
+            statistics = state.emf.unwrap(SessionFactory.class).getStatistics();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long connections;
+        public long requests;
+    }
+
+    @Benchmark
+    public Object sessionPerCall(DaoState state, Transactions transactions, Counters counters) {
+        long before = transactions.statistics.getConnectCount();
+        Object result = serviceOperation(state);
+        counters.connections += transactions.statistics.getConnectCount() - before;
+        counters.requests++;
+        return result;
+    }
+
+    @Benchmark
+    public Object sharedTransactionalSession(DaoState state, Transactions transactions, Counters counters) {
+        long before = transactions.statistics.getConnectCount();
+        Object result = transactions.transactionTemplate.execute(status -> serviceOperation(state));
+        counters.connections += transactions.statistics.getConnectCount() - before;
+        counters.requests++;
+        return result;
+    }
+
+    private static Object serviceOperation(DaoState state) {
+        Author author = state.authorDao.findAuthorByNameNative("Craig", "Walls");
+        return List.of(author,
+                state.authorDao.findBooksByAuthor(author.getId()),
+                state.bookDao.findBookByTitle("Clean Code"),
+                state.bookDao.findBooksAfter(null, 10));
+    }
+}
@@ -0,0 +1,35 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.BookDao;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Application context and DAOs shared by all threads of a benchmark run.
+ */
+@State(Scope.Benchmark)
+public class DaoState {
+    ConfigurableApplicationContext context;
+    EntityManagerFactory emf;
+    AuthorDao authorDao;
+    BookDao bookDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        emf = context.getBean(EntityManagerFactory.class);
+        authorDao = context.getBean(AuthorDao.class);
+        bookDao = context.getBean(BookDao.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+}
@@ -0,0 +1,85 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.domain.BookSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DAO throughput with the statement logging of application.properties against the prod profile's sampled
+ * asynchronous query log. Both run on H2, the prod run overrides only the MySQL connection settings, the
+ * MySQL driver properties it keeps are ignored by H2.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingProfileBenchmark {
+
+    private static final String[] DEV = {
+            "spring.jpa.properties.hibernate.show_sql=true",
+            "spring.jpa.properties.hibernate.format_sql=true",
+            "logging.level.root=info",
+            "logging.level.org.hibernate.type.descriptor.sql=trace"
+    };
+
+    private static final String[] PROD = {
+            "spring.profiles.active=prod",
+            "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;MODE=MYSQL;" +
+                    "DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE",
+            "spring.datasource.driver-class-name=org.h2.Driver",
+            "spring.datasource.username=sa",
+            "spring.datasource.password=password",
+            "spring.flyway.user=sa",
+            "spring.flyway.password=password",
+            "logging.level.root=info"
+    };
+
+    @State(Scope.Benchmark)
+    public static class ProfileState {
+
+        @Param({"dev", "prod"})
+        public String profile;
+
+        ConfigurableApplicationContext context;
+        BookDao bookDao;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BenchmarkApplication.start("dev".equals(profile) ? DEV : PROD);
+            bookDao = context.getBean(BookDao.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public Book findBookByTitle(ProfileState state) {
+        return state.bookDao.findBookByTitle("Clean Code");
+    }
+
+    @Benchmark
+    public List<BookSummary> findBookSummaries(ProfileState state) {
+        return state.bookDao.findBookSummaries(null, 10);
+    }
+}
@@ -0,0 +1,69 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.dao.KeysetPage;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.AuthorName;
+import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.domain.BookSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record projections against the entity returning finders that load the same rows.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    private static final int SEEDED_BOOKS = 10_000;
+    private static final int PAGE_SIZE = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class SeededBooks {
+
+        @Setup(Level.Trial)
+        public void seed(DaoState state) {
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < SEEDED_BOOKS; i++) {
+                books.add(new Book("Projection " + i, "projection-" + i, "Benchmark Publisher"));
+            }
+            state.bookDao.saveAllBooks(books);
+        }
+    }
+
+    @Benchmark
+    public List<BookSummary> findBookSummaries(DaoState state, SeededBooks seeded) {
+        return state.bookDao.findBookSummaries(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public KeysetPage<Book, Long> findBooksAfter(DaoState state, SeededBooks seeded) {
+        return state.bookDao.findBooksAfter(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public AuthorName findAuthorNameById(DaoState state) {
+        return state.authorDao.findAuthorNameById(1L);
+    }
+
+    @Benchmark
+    public Author getAuthorById(DaoState state) {
+        return state.authorDao.getById(1L);
+    }
+}
@@ -0,0 +1,61 @@
+package guru.springframework.jdbc.benchmark;
+
+import guru.springframework.jdbc.domain.Book;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a large result set through the read-only finder and through a plain managed session, the
+ * gc profiler shows the allocation saved by skipping the dirty checking snapshots.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadOnlyFinderBenchmark {
+
+    private static final int SEEDED_BOOKS = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class SeededBooks {
+
+        @Setup(Level.Trial)
+        public void seed(DaoState state) {
+            List<Book> books = new ArrayList<>();
+            for (int i = 0; i < SEEDED_BOOKS; i++) {
+                books.add(new Book("Read Only " + i, "read-only-" + i, "Benchmark Publisher"));
+            }
+            state.bookDao.saveAllBooks(books);
+        }
+    }
+
+    @Benchmark
+    public List<Book> readOnlyFinder(DaoState state, SeededBooks seeded) {
+        return state.bookDao.findAllBooks();
+    }
+
+    @Benchmark
+    public List<Book> managedSession(DaoState state, SeededBooks seeded) {
+        EntityManager em = state.emf.createEntityManager();
+        try {
+            return em.createNamedQuery("find_all_books", Book.class).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package guru.springframework.jdbc.cache;
+
+/**
+ * Hit, miss and put counters of a cache since statistics were last cleared.
+ */
+public record CacheStatistics(long hits, long misses, long puts) {
+
+    public double hitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+}
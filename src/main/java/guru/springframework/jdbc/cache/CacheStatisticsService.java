@@ -0,0 +1,42 @@
+package guru.springframework.jdbc.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes the Hibernate second-level and query cache counters.
+ */
+@Component
+public class CacheStatisticsService {
+    public static final String BOOK_REGION = "book";
+    public static final String AUTHOR_REGION = "author";
+
+    private final Statistics statistics;
+
+    public CacheStatisticsService(EntityManagerFactory emf) {
+        this.statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public CacheStatistics getSecondLevelCacheStatistics() {
+        return new CacheStatistics(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount());
+    }
+
+    public CacheStatistics getRegionStatistics(String regionName) {
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+        if (region == null) {
+            return new CacheStatistics(0, 0, 0);
+        }
+        return new CacheStatistics(region.getHitCount(), region.getMissCount(), region.getPutCount());
+    }
+
+    public CacheStatistics getQueryCacheStatistics() {
+        return new CacheStatistics(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount());
+    }
+}
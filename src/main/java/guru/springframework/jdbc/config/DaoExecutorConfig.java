@@ -0,0 +1,23 @@
+package guru.springframework.jdbc.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor for the async DAO facades. It has one thread per pooled connection, so concurrent DAO calls
+ * queue here instead of blocking inside the pool waiting for a connection.
+ */
+@Configuration
+public class DaoExecutorConfig {
+    public static final String DAO_EXECUTOR = "daoExecutor";
+
+    @Bean(name = DAO_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService daoExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        return Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("dao-"));
+    }
+}
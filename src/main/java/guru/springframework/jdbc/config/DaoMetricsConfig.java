@@ -0,0 +1,41 @@
+package guru.springframework.jdbc.config;
+
+import guru.springframework.jdbc.metrics.DataSourceProxyPostProcessor;
+import guru.springframework.jdbc.metrics.EntityLoadListener;
+import guru.springframework.jdbc.metrics.SampledQueryLogListener;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Feeds the per thread counters read by {@link guru.springframework.jdbc.metrics.DaoMetricsAspect}.
+ */
+@Configuration
+public class DaoMetricsConfig {
+
+    @Bean
+    public static DataSourceProxyPostProcessor dataSourceProxyPostProcessor(Environment environment) {
+        // read from the environment, a static post processor is created before property binding
+        if (environment.getProperty("dao.query-log.enabled", Boolean.class, false)) {
+            return new DataSourceProxyPostProcessor(new SampledQueryLogListener(
+                    environment.getProperty("dao.query-log.sample-rate", Integer.class, 100),
+                    environment.getProperty("dao.query-log.slow-threshold", Duration.class, Duration.ofMillis(200))));
+        }
+        return new DataSourceProxyPostProcessor();
+    }
+
+    @Bean
+    public EntityLoadListener entityLoadListener(EntityManagerFactory emf) {
+        EntityLoadListener listener = new EntityLoadListener();
+        emf.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, listener);
+        return listener;
+    }
+}
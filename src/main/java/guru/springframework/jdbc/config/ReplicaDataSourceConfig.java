@@ -0,0 +1,70 @@
+package guru.springframework.jdbc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import guru.springframework.jdbc.datasource.ReplicaLagProbe;
+import guru.springframework.jdbc.datasource.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primary and replica pools behind a routing DataSource, enabled by setting {@code app.datasource.replica.url}.
+ * DAO reads outside a Spring managed transaction use the replica, everything else the primary.
+ * Flyway migrates through the primary pool directly.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${app.datasource.replica.url}") String url,
+                                              @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+                                              @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        replica.setPoolName("bookdb-replica");
+        replica.setReadOnly(true);
+        // fail fast while the replica does not answer, app.datasource.replica.hikari.* still overrides it
+        replica.setConnectionTimeout(1000);
+        return replica;
+    }
+
+    @Bean
+    public ReplicaLagProbe replicaLagProbe(@Qualifier("replicaDataSource") DataSource replica,
+                                           @Value("${app.datasource.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                           @Value("${app.datasource.replica.lag-column:Seconds_Behind_Source}") String lagColumn,
+                                           @Value("${app.datasource.replica.max-lag:5s}") Duration maxLag,
+                                           @Value("${app.datasource.replica.lag-check-interval:1s}") Duration checkInterval) {
+        return new ReplicaLagProbe(replica, lagQuery, lagColumn, maxLag, checkInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagProbe replicaLagProbe) {
+        return new ReplicaRoutingDataSource(primary, replica, replicaLagProbe);
+    }
+}
@@ -0,0 +1,43 @@
+package guru.springframework.jdbc.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Streaming responses such as the catalog export run on their own bounded executor. Each one holds a
+ * database connection while it streams, so only a few run at a time.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final int maxConcurrentStreams;
+    private final Duration streamTimeout;
+
+    public WebConfig(@Value("${app.streaming.max-concurrent:4}") int maxConcurrentStreams,
+                     @Value("${app.streaming.timeout:30m}") Duration streamTimeout) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        this.streamTimeout = streamTimeout;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor streamingTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentStreams);
+        executor.setMaxPoolSize(maxConcurrentStreams);
+        executor.setQueueCapacity(4 * maxConcurrentStreams);
+        executor.setThreadNamePrefix("stream-");
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingTaskExecutor());
+        configurer.setDefaultTimeout(streamTimeout.toMillis());
+    }
+}
@@ -0,0 +1,93 @@
+package guru.springframework.jdbc.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.domain.Book;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the whole catalog as CSV or NDJSON. Books are read through a database cursor and written as they
+ * arrive, heap use does not grow with the catalog. The response is gzipped when the client accepts it.
+ */
+@RestController
+@RequestMapping("/api/v1/books")
+public class BookExportController {
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    public static final MediaType APPLICATION_NDJSON = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+
+    private static final int FETCH_SIZE = 500;
+
+    private final BookDao bookDao;
+    private final ObjectMapper objectMapper;
+
+    public BookExportController(BookDao bookDao, ObjectMapper objectMapper) {
+        this.bookDao = bookDao;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean includeAuthors,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean csv = switch (format.toLowerCase()) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format " + format);
+        };
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            BookExportWriter writer = csv
+                    ? new CsvBookExportWriter(target, includeAuthors)
+                    : new NdjsonBookExportWriter(target, includeAuthors, objectMapper);
+            Consumer<Book> action = book -> {
+                try {
+                    writer.write(book);
+                } catch (IOException e) {
+                    // client went away, ends the cursor
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (includeAuthors) {
+                bookDao.forEachBookWithAuthor(FETCH_SIZE, action);
+            } else {
+                bookDao.forEachBook(FETCH_SIZE, action);
+            }
+            writer.finish();
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            out.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "books.csv" : "books.ndjson").build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
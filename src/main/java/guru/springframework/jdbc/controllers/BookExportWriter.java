@@ -0,0 +1,18 @@
+package guru.springframework.jdbc.controllers;
+
+import guru.springframework.jdbc.domain.Book;
+
+import java.io.IOException;
+
+/**
+ * Writes books one at a time to an export stream, nothing is retained between books.
+ */
+interface BookExportWriter {
+
+    void write(Book book) throws IOException;
+
+    /**
+     * Flushes buffered output, the underlying stream stays open.
+     */
+    void finish() throws IOException;
+}
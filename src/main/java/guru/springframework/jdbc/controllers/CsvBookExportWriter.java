@@ -0,0 +1,66 @@
+package guru.springframework.jdbc.controllers;
+
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.Book;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV with a header row, fields are quoted when they contain a separator, quote or line break.
+ */
+class CsvBookExportWriter implements BookExportWriter {
+
+    private final Writer writer;
+    private final boolean includeAuthors;
+
+    CsvBookExportWriter(OutputStream out, boolean includeAuthors) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.includeAuthors = includeAuthors;
+        writer.write(includeAuthors
+                ? "id,isbn,title,publisher,author_id,author_first_name,author_last_name"
+                : "id,isbn,title,publisher,author_id");
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(Book book) throws IOException {
+        field(book.getId(), false);
+        field(book.getIsbn(), true);
+        field(book.getTitle(), true);
+        field(book.getPublisher(), true);
+        field(book.getAuthorId(), true);
+        if (includeAuthors) {
+            Author author = book.getAuthor();
+            field(author != null ? author.getFirstName() : null, true);
+            field(author != null ? author.getLastName() : null, true);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private void field(Object value, boolean separator) throws IOException {
+        if (separator) {
+            writer.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
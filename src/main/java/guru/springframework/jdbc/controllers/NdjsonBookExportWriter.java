@@ -0,0 +1,53 @@
+package guru.springframework.jdbc.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.Book;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * One JSON object per line, written field by field so no intermediate tree or map is built per book.
+ */
+class NdjsonBookExportWriter implements BookExportWriter {
+
+    private final JsonGenerator generator;
+    private final boolean includeAuthors;
+
+    NdjsonBookExportWriter(OutputStream out, boolean includeAuthors, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+        this.includeAuthors = includeAuthors;
+    }
+
+    @Override
+    public void write(Book book) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectField("id", book.getId());
+        generator.writeStringField("isbn", book.getIsbn());
+        generator.writeStringField("title", book.getTitle());
+        generator.writeStringField("publisher", book.getPublisher());
+        generator.writeObjectField("authorId", book.getAuthorId());
+        if (includeAuthors) {
+            Author author = book.getAuthor();
+            if (author == null) {
+                generator.writeNullField("author");
+            } else {
+                generator.writeObjectFieldStart("author");
+                generator.writeStringField("firstName", author.getFirstName());
+                generator.writeStringField("lastName", author.getLastName());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.flush();
+    }
+}
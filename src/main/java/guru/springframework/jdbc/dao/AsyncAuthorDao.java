@@ -0,0 +1,20 @@
+package guru.springframework.jdbc.dao;
+
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.AuthorName;
+import guru.springframework.jdbc.domain.Book;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncAuthorDao {
+    CompletableFuture<Author> getById(Long id);
+
+    CompletableFuture<AuthorName> findAuthorNameById(Long id);
+
+    CompletableFuture<Author> findAuthorByName(String firstName, String lastName);
+
+    CompletableFuture<List<Author>> searchAuthorsByLastNamePrefix(String prefix, int limit);
+
+    CompletableFuture<List<Book>> findBooksByAuthor(Long authorId);
+}
@@ -0,0 +1,52 @@
+package guru.springframework.jdbc.dao;
+
+import guru.springframework.jdbc.config.DaoExecutorConfig;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.AuthorName;
+import guru.springframework.jdbc.domain.Book;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs AuthorDao lookups on the DAO executor, outside any transaction of the calling thread.
+ */
+@Component
+public class AsyncAuthorDaoImpl implements AsyncAuthorDao {
+
+    private final AuthorDao authorDao;
+    private final Executor executor;
+
+    public AsyncAuthorDaoImpl(AuthorDao authorDao, @Qualifier(DaoExecutorConfig.DAO_EXECUTOR) Executor executor) {
+        this.authorDao = authorDao;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Author> getById(Long id) {
+        return CompletableFuture.supplyAsync(() -> authorDao.getById(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<AuthorName> findAuthorNameById(Long id) {
+        return CompletableFuture.supplyAsync(() -> authorDao.findAuthorNameById(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<Author> findAuthorByName(String firstName, String lastName) {
+        return CompletableFuture.supplyAsync(() -> authorDao.findAuthorByName(firstName, lastName), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Author>> searchAuthorsByLastNamePrefix(String prefix, int limit) {
+        return CompletableFuture.supplyAsync(() -> authorDao.searchAuthorsByLastNamePrefix(prefix, limit), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Book>> findBooksByAuthor(Long authorId) {
+        return CompletableFuture.supplyAsync(() -> authorDao.findBooksByAuthor(authorId), executor);
+    }
+}
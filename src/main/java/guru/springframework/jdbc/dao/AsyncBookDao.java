@@ -0,0 +1,16 @@
+package guru.springframework.jdbc.dao;
+
+import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.domain.BookSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncBookDao {
+    CompletableFuture<Book> findByISBN(String isbn);
+    CompletableFuture<List<Book>> findByISBNs(Collection<String> isbns);
+    CompletableFuture<Book> getById(Long id);
+    CompletableFuture<Book> findBookByTitle(String title);
+    CompletableFuture<List<BookSummary>> findBookSummaries(Long lastId, int limit);
+}
@@ -0,0 +1,53 @@
+package guru.springframework.jdbc.dao;
+
+import guru.springframework.jdbc.config.DaoExecutorConfig;
+import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.domain.BookSummary;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs BookDao lookups on the DAO executor. The calls do not join a transaction of the caller's thread,
+ * each one uses its own read-only EntityManager.
+ */
+@Component
+public class AsyncBookDaoImpl implements AsyncBookDao {
+
+    private final BookDao bookDao;
+    private final Executor executor;
+
+    public AsyncBookDaoImpl(BookDao bookDao, @Qualifier(DaoExecutorConfig.DAO_EXECUTOR) Executor executor) {
+        this.bookDao = bookDao;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Book> findByISBN(String isbn) {
+        return CompletableFuture.supplyAsync(() -> bookDao.findByISBN(isbn), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Book>> findByISBNs(Collection<String> isbns) {
+        return CompletableFuture.supplyAsync(() -> bookDao.findByISBNs(isbns), executor);
+    }
+
+    @Override
+    public CompletableFuture<Book> getById(Long id) {
+        return CompletableFuture.supplyAsync(() -> bookDao.getById(id), executor);
+    }
+
+    @Override
+    public CompletableFuture<Book> findBookByTitle(String title) {
+        return CompletableFuture.supplyAsync(() -> bookDao.findBookByTitle(title), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<BookSummary>> findBookSummaries(Long lastId, int limit) {
+        return CompletableFuture.supplyAsync(() -> bookDao.findBookSummaries(lastId, limit), executor);
+    }
+}
@@ -0,0 +1,24 @@
+package guru.springframework.jdbc.dao;
+
+import guru.springframework.jdbc.domain.Author;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by {@link AuthorDaoImpl} after authors were written, the author counterpart of {@link BookChangedEvent}.
+ */
+public record AuthorChangedEvent(Type type, Collection<Author> saved, Collection<Long> deletedIds) {
+
+    public enum Type {
+        SAVED, DELETED
+    }
+
+    public static AuthorChangedEvent saved(Collection<Author> authors) {
+        return new AuthorChangedEvent(Type.SAVED, authors, List.of());
+    }
+
+    public static AuthorChangedEvent deleted(Collection<Long> ids) {
+        return new AuthorChangedEvent(Type.DELETED, List.of(), ids);
+    }
+}
@@ -0,0 +1,14 @@
+package guru.springframework.jdbc.dao;
+
+/**
+ * Keyset position for authors ordered by last name and then id. The last name may be null, authors without one
+ * sort first.
+ */
+public record AuthorCursor(String lastName, Long id) {
+
+    public AuthorCursor {
+        if (id == null) {
+            throw new IllegalArgumentException("Author cursor needs the id of the last author");
+        }
+    }
+}
@@ -1,26 +1,47 @@
 package guru.springframework.jdbc.dao;
 
 import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.AuthorName;
+import guru.springframework.jdbc.domain.Book;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Created by jt on 8/22/21.
  */
 public interface AuthorDao {
     List<Author> listAuthorByLstNameLike(String lastName);
+
+    List<Author> searchAuthorsByLastNamePrefix(String prefix, int limit);
+
     Author getById(Long id);
 
+    AuthorName findAuthorNameById(Long id);
+
     Author findAuthorByName(String firstName, String lastName);
 
     Author saveNewAuthor(Author author);
 
+    List<Author> saveAllAuthors(Collection<Author> authors);
+
     Author updateAuthor(Author author);
 
+    Author updateAuthorWithRetry(Long id, Consumer<Author> changes, int maxAttempts);
+
     void deleteAuthorById(Long id);
 
+    int deleteAuthorsByIds(Collection<Long> ids);
+
     List<Author> findAll();
 
+    void forEachAuthor(int fetchSize, Consumer<Author> action);
+
+    KeysetPage<Author, AuthorCursor> findAuthorsAfter(AuthorCursor after, int limit);
+
+    List<Book> findBooksByAuthor(Long authorId);
+
     Author findAuthorByNameCriteria(String firstName, String lastName);
 
     Author findAuthorByNameNative(String firstName, String lastName);
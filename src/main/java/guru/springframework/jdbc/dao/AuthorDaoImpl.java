@@ -1,158 +1,345 @@
 package guru.springframework.jdbc.dao;
 
 import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.AuthorName;
+import guru.springframework.jdbc.domain.Book;
 import jakarta.persistence.*;
 import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Created by jt on 8/28/21.
+ * <p>
+ * Every write publishes an {@link AuthorChangedEvent} once the DAO call returned, see {@link BookDaoImpl}.
  */
 @Component
-public class AuthorDaoImpl implements AuthorDao {
+public class AuthorDaoImpl implements AuthorDao, ApplicationEventPublisherAware {
+    // keep in step with hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+    private static final int IN_LIST_SIZE = 1000;
+    private static final String FIND_BY_NAME_CRITERIA = "author_find_by_name_criteria";
+    private static final Map<String, Object> BYPASS_CACHE =
+            Map.of(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
+
     private final EntityManagerFactory emf;
+    private final EntityManagerSupport entityManagers;
+    private ApplicationEventPublisher eventPublisher;
 
     public AuthorDaoImpl(EntityManagerFactory emf) {
         this.emf = emf;
+        this.entityManagers = new EntityManagerSupport(emf);
+        registerCriteriaQueries();
     }
 
     @Override
-    public List<Author> listAuthorByLstNameLike(String lastName) {
-        EntityManager em = this.getEntityManager();
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Builds the criteria queries once and registers them as named queries, so calls only bind parameters
+     * instead of rebuilding and re-translating the criteria tree.
+     */
+    private void registerCriteriaQueries() {
+        EntityManager em = emf.createEntityManager();
         try {
+            CriteriaBuilder criteriaBuilder = em.getCriteriaBuilder();
+            CriteriaQuery<Author> criteriaQuery = criteriaBuilder.createQuery(Author.class);
+
+            Root<Author> root = criteriaQuery.from(Author.class);
+
+            ParameterExpression<String> firstNameParam = criteriaBuilder.parameter(String.class, "first_name");
+            ParameterExpression<String> lastNameParam = criteriaBuilder.parameter(String.class, "last_name");
+
+            Predicate firstNamePred = criteriaBuilder.equal(root.get("firstName"), firstNameParam);
+            Predicate lastNamePred = criteriaBuilder.equal(root.get("lastName"), lastNameParam);
+
+            criteriaQuery.select(root).where(criteriaBuilder.and(firstNamePred, lastNamePred));
+
+            emf.addNamedQuery(FIND_BY_NAME_CRITERIA, em.createQuery(criteriaQuery));
+        } finally {
+            em.close();
+        }
+    }
+
+    @Override
+    public List<Author> listAuthorByLstNameLike(String lastName) {
+        return entityManagers.read(em -> {
             Query query = em.createQuery("SELECT a FROM Author a WHERE a.lastName like :last_name");
             query.setParameter("last_name", lastName + "%");
             List<Author> authors = query.getResultList();
             return authors;
-        } finally {
-            em.close();
+        });
+    }
+
+    @Override
+    public List<Author> searchAuthorsByLastNamePrefix(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("prefix must not be null");
         }
+        checkLimit(limit);
+        return entityManagers.read(em -> {
+            TypedQuery<Author> query = em.createNamedQuery("find_authors_by_last_name_prefix", Author.class);
+            query.setParameter("prefix", escapeLike(prefix) + "%");
+            query.setMaxResults(limit);
+            return query.getResultList();
+        });
     }
 
     @Override
     public Author getById(Long id) {
-        EntityManager em = this.getEntityManager();
-        try {
-            Author author = em.find(Author.class, id);
-            return author;
-        } finally {
-            em.close();
-        }
+        return entityManagers.read(em -> em.find(Author.class, id));
+    }
+
+    @Override
+    public AuthorName findAuthorNameById(Long id) {
+        return entityManagers.read(em -> {
+            TypedQuery<AuthorName> query = em.createNamedQuery("find_author_name_by_id", AuthorName.class);
+            query.setParameter("id", id);
+            List<AuthorName> names = query.getResultList();
+            return names.isEmpty() ? null : names.get(0);
+        });
     }
 
     @Override
     public Author findAuthorByName(String firstName, String lastName) {
-        EntityManager em = this.getEntityManager();
-        try {
+        return entityManagers.read(em -> {
             TypedQuery<Author> query = em.createNamedQuery("find_by_name", Author.class);
             query.setParameter("first_name", firstName);
             query.setParameter("last_name", lastName);
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
             return query.getSingleResult();
-        } finally {
-            em.close();
-        }
+        });
     }
 
     @Override
     public Author findAuthorByNameCriteria(String firstName, String lastName) {
-        EntityManager em = this.getEntityManager();
-        try {
-            CriteriaBuilder criteriaBuilder = em.getCriteriaBuilder();
-            CriteriaQuery<Author> criteriaQuery = criteriaBuilder.createQuery(Author.class);
-
-            Root<Author> root = criteriaQuery.from(Author.class);
-
-            ParameterExpression<String> firstNameParam = criteriaBuilder.parameter(String.class);
-            ParameterExpression<String> lastNameParam = criteriaBuilder.parameter(String.class);
-
-            Predicate firstNamePred = criteriaBuilder.equal(root.get("firstName"), firstNameParam);
-            Predicate lastNamePred = criteriaBuilder.equal(root.get("lastName"), lastNameParam);
-
-            criteriaQuery.select(root).where(criteriaBuilder.and(firstNamePred, lastNamePred));
-
-            TypedQuery<Author> typedQuery = em.createQuery(criteriaQuery);
-            typedQuery.setParameter(firstNameParam, firstName);
-            typedQuery.setParameter(lastNameParam, lastName);
+        return entityManagers.read(em -> {
+            TypedQuery<Author> typedQuery = em.createNamedQuery(FIND_BY_NAME_CRITERIA, Author.class);
+            typedQuery.setParameter("first_name", firstName);
+            typedQuery.setParameter("last_name", lastName);
 
             return typedQuery.getSingleResult();
-        } finally {
-            em.close();
-        }
+        });
     }
 
     @Override
     public Author findAuthorByNameNative(String firstName, String lastName) {
-        EntityManager em = this.getEntityManager();
-        try {
+        return entityManagers.read(em -> {
             Query query = em.createNativeQuery("SELECT * FROM author a WHERE a.first_name = ? and a.last_name = ?", Author.class);
 
             query.setParameter(1, firstName);
             query.setParameter(2, lastName);
 
             return (Author) query.getSingleResult();
-        } finally {
-            em.close();
-        }
+        });
     }
 
     @Override
     public Author saveNewAuthor(Author author) {
-        EntityManager em = getEntityManager();
-        try {
-            // Full transaction in a hibernate context
-            em.getTransaction().begin();
+        Author saved = entityManagers.write(em -> {
             em.persist(author);
             em.flush();
-            em.getTransaction().commit();
             return author;
-        } finally {
-            em.close();
-        }
+        });
+        publish(AuthorChangedEvent.saved(List.of(saved)));
+        return saved;
+    }
+
+    @Override
+    public List<Author> saveAllAuthors(Collection<Author> authors) {
+        List<Author> saved = entityManagers.write(em -> {
+            List<Author> batch = new ArrayList<>(BATCH_SIZE);
+            for (Author author : authors) {
+                em.persist(author);
+                batch.add(author);
+                if (batch.size() == BATCH_SIZE) {
+                    // see BookDaoImpl.saveAllBooks, only the batch is detached
+                    em.flush();
+                    batch.forEach(em::detach);
+                    batch.clear();
+                }
+            }
+            em.flush();
+            return new ArrayList<>(authors);
+        });
+        publish(AuthorChangedEvent.saved(saved));
+        return saved;
     }
 
     @Override
     public Author updateAuthor(Author author) {
-        EntityManager em = this.getEntityManager();
+        Author merged;
         try {
-            em.joinTransaction();
-            em.merge(author);
-            em.flush();
-            em.clear();
+            merged = entityManagers.write(em -> {
+                Author updated = em.merge(author);
+                em.flush();
+                return updated;
+            });
+        } catch (OptimisticLockException e) {
+            throw new OptimisticLockConflictException(Author.class, author.getId(), e);
+        }
+        publish(AuthorChangedEvent.saved(List.of(merged)));
+        return merged;
+    }
 
-            return em.find(Author.class, author.getId());
-        } finally {
-            em.close();
+    @Override
+    public Author updateAuthorWithRetry(Long id, Consumer<Author> changes, int maxAttempts) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Author updated = entityManagers.write(em -> {
+                    Author author = em.find(Author.class, id, BYPASS_CACHE);
+                    if (author == null) {
+                        throw new EntityNotFoundException("No author found for id " + id);
+                    }
+                    changes.accept(author);
+                    em.flush();
+                    return author;
+                });
+                publish(AuthorChangedEvent.saved(List.of(updated)));
+                return updated;
+            } catch (OptimisticLockException e) {
+                // inside a caller's transaction the failed flush poisoned its persistence context, so rethrow
+                // on the first conflict instead of retrying on it
+                if (attempt >= maxAttempts || entityManagers.joinsTransaction()) {
+                    throw new OptimisticLockConflictException(Author.class, id, e);
+                }
+            }
         }
     }
 
     @Override
     public void deleteAuthorById(Long id) {
-        EntityManager em = getEntityManager();
-        try {
-            em.getTransaction().begin();
-            Author author = em.find(Author.class, id);
-            em.remove(author);
+        entityManagers.write(em -> {
+            // see BookDaoImpl.deleteBookById, a bulk DELETE would evict the whole author region
+            em.remove(em.getReference(Author.class, id));
             em.flush();
-            em.getTransaction().commit();
-        } finally {
-            em.close();
-        }
+            return null;
+        });
+        publish(AuthorChangedEvent.deleted(List.of(id)));
+    }
+
+    @Override
+    public int deleteAuthorsByIds(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        int deletedCount = entityManagers.write(em -> {
+            int deleted = 0;
+            // keeps each IN list well below the bind parameter limit of the driver
+            for (int from = 0; from < idList.size(); from += IN_LIST_SIZE) {
+                deleted += em.createNamedQuery("delete_authors_by_ids")
+                        .setParameter("ids", idList.subList(from, Math.min(from + IN_LIST_SIZE, idList.size())))
+                        .executeUpdate();
+            }
+            idList.forEach(id -> detach(em, id));
+            return deleted;
+        });
+        publish(AuthorChangedEvent.deleted(idList));
+        return deletedCount;
     }
 
     @Override
     public List<Author> findAll() {
-        EntityManager em = this.getEntityManager();
-        try {
+        return entityManagers.read(em -> {
             TypedQuery<Author> typedQuery = em.createNamedQuery("author_find_all", Author.class);
             return typedQuery.getResultList();
-        } finally {
-            em.close();
+        });
+    }
+
+    @Override
+    public void forEachAuthor(int fetchSize, Consumer<Author> action) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be at least 1, got " + fetchSize);
         }
+        entityManagers.readIsolated(em -> {
+            TypedQuery<Author> query = em.createNamedQuery("author_find_all", Author.class);
+            query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+
+            try (Stream<Author> authors = query.getResultStream()) {
+                Iterator<Author> iterator = authors.iterator();
+                int count = 0;
+                while (iterator.hasNext()) {
+                    action.accept(iterator.next());
+                    if (++count % fetchSize == 0) {
+                        // detach what has been handed out so the persistence context stays bounded
+                        em.clear();
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public KeysetPage<Author, AuthorCursor> findAuthorsAfter(AuthorCursor after, int limit) {
+        checkLimit(limit);
+        return entityManagers.read(em -> {
+            TypedQuery<Author> query;
+            if (after == null) {
+                query = em.createNamedQuery("find_authors_first_page", Author.class);
+            } else if (after.lastName() == null) {
+                // lastName > NULL matches nothing
+                query = em.createNamedQuery("find_authors_after_null_last_name", Author.class);
+                query.setParameter("last_id", after.id());
+            } else {
+                query = em.createNamedQuery("find_authors_after", Author.class);
+                query.setParameter("last_name", after.lastName());
+                query.setParameter("last_id", after.id());
+            }
+            // one extra row tells us whether there is a next page
+            query.setMaxResults(limit + 1);
+            List<Author> authors = query.getResultList();
+
+            if (authors.size() <= limit) {
+                return new KeysetPage<>(authors, null);
+            }
+            List<Author> content = authors.subList(0, limit);
+            Author last = content.get(limit - 1);
+            return new KeysetPage<>(content, new AuthorCursor(last.getLastName(), last.getId()));
+        });
+    }
+
+    @Override
+    public List<Book> findBooksByAuthor(Long authorId) {
+        return entityManagers.read(em -> {
+            TypedQuery<Book> query = em.createNamedQuery("find_books_by_author", Book.class);
+            query.setParameter("author_id", authorId);
+            return query.getResultList();
+        });
+    }
+
+    private void publish(AuthorChangedEvent event) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1, got " + limit);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
-    private EntityManager getEntityManager() {
-        return emf.createEntityManager();
+    /**
+     * Drops a deleted author from a shared persistence context, getReference does not hit the database.
+     */
+    private static void detach(EntityManager em, Long id) {
+        em.detach(em.getReference(Author.class, id));
     }
 }
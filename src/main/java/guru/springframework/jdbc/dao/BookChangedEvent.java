@@ -0,0 +1,35 @@
+package guru.springframework.jdbc.dao;
+
+import guru.springframework.jdbc.domain.Book;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by {@link BookDaoImpl} after books were written. Saved books carry their written state, deletes only
+ * the ids. Upserts write rows without loading them, they carry the isbns of the rows they inserted or updated.
+ * Bulk statements change rows the DAO never sees, they are published as {@link Type#BULK} without any of these.
+ */
+public record BookChangedEvent(Type type, Collection<Book> saved, Collection<Long> deletedIds,
+                               Collection<String> upsertedIsbns) {
+
+    public enum Type {
+        SAVED, DELETED, UPSERTED, BULK
+    }
+
+    public static BookChangedEvent saved(Collection<Book> books) {
+        return new BookChangedEvent(Type.SAVED, books, List.of(), List.of());
+    }
+
+    public static BookChangedEvent deleted(Collection<Long> ids) {
+        return new BookChangedEvent(Type.DELETED, List.of(), ids, List.of());
+    }
+
+    public static BookChangedEvent upserted(Collection<String> isbns) {
+        return new BookChangedEvent(Type.UPSERTED, List.of(), List.of(), isbns);
+    }
+
+    public static BookChangedEvent bulk() {
+        return new BookChangedEvent(Type.BULK, List.of(), List.of(), List.of());
+    }
+}
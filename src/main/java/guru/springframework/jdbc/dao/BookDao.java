@@ -1,17 +1,34 @@
 package guru.springframework.jdbc.dao;
 
 import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.domain.BookSummary;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface BookDao {
     Book findByISBN(String isbn);
+    List<Book> findByISBNs(Collection<String> isbns);
     Book getById(Long id);
     Book findBookByTitle(String title);
     Book findBookByTitleCriteria(String title);
     Book saveNewBook(Book book);
+    List<Book> saveAllBooks(Collection<Book> books);
+    UpsertResult upsertBooks(Collection<Book> books);
     Book updateBook(Book book);
+    Book updateBookWithRetry(Long id, Consumer<Book> changes, int maxAttempts);
+    Book patchBook(Long id, Map<String, Object> changes);
     void deleteBookById(Long id);
+    int deleteBooksByIds(Collection<Long> ids);
+    int deleteBooksByPublisher(String publisher);
+    int updatePublisher(String oldPublisher, String newPublisher);
     List<Book> findAllBooks();
+    void forEachBook(int fetchSize, Consumer<Book> action);
+    void forEachBookWithAuthor(int fetchSize, Consumer<Book> action);
+    KeysetPage<Book, Long> findBooksAfter(Long lastId, int limit);
+    KeysetPage<Book, Long> findBooksWithAuthors(Long lastId, int limit);
+    List<BookSummary> findBookSummaries(Long lastId, int limit);
     Book findBookByTitleNative(String title);
 }
@@ -1,154 +1,565 @@
 package guru.springframework.jdbc.dao;
 
-import guru.springframework.jdbc.domain.Author;
 import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.domain.BookSummary;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.CacheRetrieveMode;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-public class BookDaoImpl implements BookDao {
+/**
+ * Bulk update and delete statements bypass the persistence context, Hibernate evicts the affected
+ * second-level and query cache regions when they execute. Single books are deleted through the persistence
+ * context instead, so deleting one book does not empty the caches.
+ * <p>
+ * Every write publishes a {@link BookChangedEvent} once the DAO call returned, listeners bound to the
+ * transaction phase see it after the surrounding transaction committed.
+ */
+@Component
+public class BookDaoImpl implements BookDao, ApplicationEventPublisherAware {
+
+    // keep in step with hibernate.jdbc.batch_size
+    private static final int BATCH_SIZE = 50;
+    private static final int IN_LIST_SIZE = 1000;
+    // rows per multi-row upsert statement, five bind parameters each
+    private static final int UPSERT_CHUNK_SIZE = 500;
+    private static final String FIND_BY_TITLE_CRITERIA = "find_book_by_title_criteria";
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("title", "isbn", "publisher", "authorId");
+    // a retry has to see the committed version, not the one in the second-level cache
+    private static final Map<String, Object> BYPASS_CACHE =
+            Map.of(SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS);
 
     private final EntityManagerFactory emf;
+    private final EntityManagerSupport entityManagers;
+    private volatile Boolean h2;
+    private ApplicationEventPublisher eventPublisher;
 
     public BookDaoImpl(EntityManagerFactory emf) {
         this.emf = emf;
+        this.entityManagers = new EntityManagerSupport(emf);
+        registerCriteriaQueries();
     }
 
     @Override
-    public Book findByISBN(String isbn) {
-        EntityManager em = this.getEntityManager();
+    public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Builds the criteria queries once and registers them as named queries, so calls only bind parameters
+     * instead of rebuilding and re-translating the criteria tree.
+     */
+    private void registerCriteriaQueries() {
+        EntityManager em = emf.createEntityManager();
         try {
-            TypedQuery<Book> query = em.createQuery("SELECT b FROM Book b WHERE b.isbn = :isbn", Book.class);
-            query.setParameter("isbn", isbn);
+            CriteriaBuilder criteriaBuilder = em.getCriteriaBuilder();
+            CriteriaQuery<Book> criteriaQuery = criteriaBuilder.createQuery(Book.class);
 
-            return query.getSingleResult();
+            Root<Book> root = criteriaQuery.from(Book.class);
+
+            ParameterExpression<String> titleParam = criteriaBuilder.parameter(String.class, "title");
+
+            Predicate titlePred = criteriaBuilder.equal(root.get("title"), titleParam);
+
+            criteriaQuery.select(root).where(criteriaBuilder.and(titlePred));
+
+            emf.addNamedQuery(FIND_BY_TITLE_CRITERIA, em.createQuery(criteriaQuery));
         } finally {
-         em.close();
+            em.close();
         }
-
     }
 
     @Override
-    public Book getById(Long id) {
-        EntityManager em = this.getEntityManager();
-
-        try {
-            Book book = em.find(Book.class, id);
+    public Book findByISBN(String isbn) {
+        return entityManagers.read(em -> {
+            // resolved through the natural id cache before falling back to the unique isbn index
+            Book book = em.unwrap(Session.class).bySimpleNaturalId(Book.class).load(isbn);
+            if (book == null) {
+                throw new NoResultException("No book found for isbn " + isbn);
+            }
             return book;
-        } finally {
-            em.close();
+        });
+    }
+
+    @Override
+    public List<Book> findByISBNs(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return new ArrayList<>();
         }
+        return entityManagers.read(em -> {
+            TypedQuery<Book> query = em.createNamedQuery("find_books_by_isbns", Book.class);
+            query.setParameter("isbns", isbns);
+            return query.getResultList();
+        });
+    }
 
+    @Override
+    public Book getById(Long id) {
+        return entityManagers.read(em -> em.find(Book.class, id));
     }
+
     @Override
     public Book findBookByTitle(String title) {
-        EntityManager em = this.getEntityManager();
-        try {
+        return entityManagers.read(em -> {
             TypedQuery<Book> query = em.createNamedQuery("find_book_by_title", Book.class);
             query.setParameter("title", title);
             return query.getSingleResult();
-
-        } finally {
-            em.close();
-        }
+        });
     }
 
     @Override
     public Book findBookByTitleCriteria(String title) {
-        EntityManager em = this.getEntityManager();
-        try {
-            CriteriaBuilder criteriaBuilder = em.getCriteriaBuilder();
-            CriteriaQuery<Book> criteriaQuery = criteriaBuilder.createQuery(Book.class);
-
-            Root<Book> root = criteriaQuery.from(Book.class);
-
-            ParameterExpression<String> titleParam = criteriaBuilder.parameter(String.class);
-
-            Predicate titlePred = criteriaBuilder.equal(root.get("title"), titleParam);
-
-            criteriaQuery.select(root).where(criteriaBuilder.and(titlePred));
+        return entityManagers.read(em -> {
+            TypedQuery<Book> typedQuery = em.createNamedQuery(FIND_BY_TITLE_CRITERIA, Book.class);
+            typedQuery.setParameter("title", title);
 
-            TypedQuery<Book> typedQuery = em.createQuery(criteriaQuery);
-            typedQuery.setParameter(titleParam, title);
-
-            return  typedQuery.getSingleResult();
-        } finally {
-            em.close();
-        }
+            return typedQuery.getSingleResult();
+        });
     }
 
     @Override
     public Book findBookByTitleNative(String title) {
-        EntityManager em = this.getEntityManager();
-        try {
+        return entityManagers.read(em -> {
             Query query = em.createNativeQuery("SELECT * FROM book b WHERE b.title = :title", Book.class);
 
             query.setParameter("title", title);
 
             return (Book) query.getSingleResult();
-        } finally {
-            em.close();
-        }
+        });
     }
 
     @Override
     public Book saveNewBook(Book book) {
-        EntityManager em = getEntityManager();
-        try {
-            em.getTransaction().begin();
+        Book saved = entityManagers.write(em -> {
             em.persist(book);
             em.flush();
-            em.getTransaction().commit();
             return book;
-        } finally {
-            em.close();
+        });
+        publish(BookChangedEvent.saved(List.of(saved)));
+        return saved;
+    }
+
+    @Override
+    public List<Book> saveAllBooks(Collection<Book> books) {
+        List<Book> saved = entityManagers.write(em -> {
+            List<Book> batch = new ArrayList<>(BATCH_SIZE);
+            for (Book book : books) {
+                em.persist(book);
+                batch.add(book);
+                if (batch.size() == BATCH_SIZE) {
+                    // send the JDBC batch and drop just these books, clear() would also detach the entities
+                    // a caller loaded into a shared persistence context
+                    em.flush();
+                    batch.forEach(em::detach);
+                    batch.clear();
+                }
+            }
+            em.flush();
+            return new ArrayList<>(books);
+        });
+        publish(BookChangedEvent.saved(saved));
+        return saved;
+    }
+
+    /**
+     * Inserts books with new isbns and updates title, publisher and author of existing ones, keyed on the unique
+     * isbn index, in multi-row statements of {@value #UPSERT_CHUNK_SIZE} rows. Only one chunk is held at a time,
+     * the books are not attached to the persistence context and do not get their ids set.
+     * <p>
+     * Every row is given an id from the book id generator up front, ids of rows that turn out to exist are
+     * skipped. Updated rows get their version incremented. Within a chunk the last book for an isbn wins.
+     * Book entities already loaded in a shared persistence context are not refreshed.
+     * <p>
+     * Inside a Spring managed transaction all chunks are part of it. Outside one every chunk commits on its own,
+     * so a long feed does not hold row locks and undo for its whole run. When a chunk fails the chunks before it
+     * stay committed, the upsert is idempotent and the feed can simply be run again.
+     */
+    @Override
+    public UpsertResult upsertBooks(Collection<Book> books) {
+        UpsertResult result = new UpsertResult(0, 0);
+        Map<String, Book> chunk = new LinkedHashMap<>();
+        for (Book book : books) {
+            chunk.put(book.getIsbn(), book);
+            if (chunk.size() == UPSERT_CHUNK_SIZE) {
+                result = result.plus(writeChunk(chunk.values()));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result = result.plus(writeChunk(chunk.values()));
+        }
+        return result;
+    }
+
+    /**
+     * Publishes every chunk on its own, the chunks before a failed one may have committed already.
+     */
+    private UpsertResult writeChunk(Collection<Book> chunk) {
+        UpsertResult result = entityManagers.write(em -> {
+            SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+            IdentifierGenerator idGenerator = session.getFactory().getRuntimeMetamodels().getMappingMetamodel()
+                    .getEntityDescriptor(Book.class).getIdentifierGenerator();
+            return upsertChunk(em, session, idGenerator, isH2(em), chunk);
+        });
+        publish(BookChangedEvent.upserted(chunk.stream().map(Book::getIsbn).toList()));
+        return result;
+    }
+
+    private static UpsertResult upsertChunk(EntityManager em, SharedSessionContractImplementor session,
+                                            IdentifierGenerator idGenerator, boolean useMerge,
+                                            Collection<Book> chunk) {
+        int rows = chunk.size();
+        if (useMerge) {
+            // H2 MERGE reports one affected row per source row, count the existing isbns first
+            int existing = ((Number) em.createNativeQuery("SELECT COUNT(*) FROM book WHERE isbn IN :isbns")
+                    .setParameter("isbns", chunk.stream().map(Book::getIsbn).toList())
+                    .getSingleResult()).intValue();
+            bindRows(em.createNativeQuery(h2MergeSql(rows)), session, idGenerator, chunk).executeUpdate();
+            return new UpsertResult(rows - existing, existing);
+        }
+        // with the version bump every existing row is changed, MySQL reports 1 per insert and 2 per update
+        int affected = bindRows(em.createNativeQuery(mysqlUpsertSql(rows)), session, idGenerator, chunk)
+                .executeUpdate();
+        int inserted = 2 * rows - affected;
+        return new UpsertResult(inserted, rows - inserted);
+    }
+
+    private static Query bindRows(Query query, SharedSessionContractImplementor session,
+                                  IdentifierGenerator idGenerator, Collection<Book> chunk) {
+        NativeQuery<?> nativeQuery = query.unwrap(NativeQuery.class);
+        // evicts the book entity, natural id and query cache regions once the statement ran
+        nativeQuery.addSynchronizedEntityClass(Book.class);
+        int position = 1;
+        for (Book book : chunk) {
+            // typed binding, null titles, publishers and authors carry no type of their own
+            nativeQuery.setParameter(position++, (Long) idGenerator.generate(session, book), StandardBasicTypes.LONG);
+            nativeQuery.setParameter(position++, book.getIsbn(), StandardBasicTypes.STRING);
+            nativeQuery.setParameter(position++, book.getTitle(), StandardBasicTypes.STRING);
+            nativeQuery.setParameter(position++, book.getPublisher(), StandardBasicTypes.STRING);
+            nativeQuery.setParameter(position++, book.getAuthorId(), StandardBasicTypes.LONG);
         }
+        return query;
+    }
+
+    private static String mysqlUpsertSql(int rows) {
+        return "INSERT INTO book (id, isbn, title, publisher, author_id, version) VALUES " +
+                String.join(", ", Collections.nCopies(rows, "(?, ?, ?, ?, ?, 0)")) +
+                " ON DUPLICATE KEY UPDATE title = VALUES(title), publisher = VALUES(publisher), " +
+                "author_id = VALUES(author_id), version = version + 1";
+    }
+
+    private static String h2MergeSql(int rows) {
+        return "MERGE INTO book b USING (VALUES " +
+                String.join(", ", Collections.nCopies(rows, "(CAST(? AS BIGINT), CAST(? AS VARCHAR(255)), " +
+                        "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT))")) +
+                ") AS s (id, isbn, title, publisher, author_id) ON b.isbn = s.isbn " +
+                "WHEN MATCHED THEN UPDATE SET title = s.title, publisher = s.publisher, author_id = s.author_id, " +
+                "version = b.version + 1 " +
+                "WHEN NOT MATCHED THEN INSERT (id, isbn, title, publisher, author_id, version) " +
+                "VALUES (s.id, s.isbn, s.title, s.publisher, s.author_id, 0)";
+    }
+
+    /**
+     * Tests run on H2 in MySQL mode with the MySQL dialect, so the database is told apart by the JDBC metadata.
+     */
+    private boolean isH2(EntityManager em) {
+        Boolean result = h2;
+        if (result == null) {
+            result = em.unwrap(Session.class)
+                    .doReturningWork(connection -> "H2".equals(connection.getMetaData().getDatabaseProductName()));
+            h2 = result;
+        }
+        return result;
     }
 
     @Override
     public Book updateBook(Book book) {
-        EntityManager em = this.getEntityManager();
+        Book merged;
         try {
-            em.getTransaction().begin();
-            em.merge(book);
-            em.flush();
-            em.getTransaction().commit();
-            Book updated = em.find(Book.class, book.getId());
-            return updated;
-        } finally {
-            em.close();
+            merged = entityManagers.write(em -> {
+                // the merged instance already carries the new version, no need to read the row back
+                Book result = em.merge(book);
+                em.flush();
+                return result;
+            });
+        } catch (OptimisticLockException e) {
+            throw new OptimisticLockConflictException(Book.class, book.getId(), e);
         }
+        publish(BookChangedEvent.saved(List.of(merged)));
+        return merged;
     }
+
+    /**
+     * Re-reads the book and re-applies the changes when another writer committed in between. Inside a Spring
+     * managed transaction the first conflict is thrown, its persistence context cannot be reused after a
+     * failed flush.
+     */
     @Override
-    public void deleteBookById(Long id) {
-        EntityManager em = this.getEntityManager();
+    public Book updateBookWithRetry(Long id, Consumer<Book> changes, int maxAttempts) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Book updated = entityManagers.write(em -> {
+                    Book book = em.find(Book.class, id, BYPASS_CACHE);
+                    if (book == null) {
+                        throw new EntityNotFoundException("No book found for id " + id);
+                    }
+                    changes.accept(book);
+                    em.flush();
+                    return book;
+                });
+                publish(BookChangedEvent.saved(List.of(updated)));
+                return updated;
+            } catch (OptimisticLockException e) {
+                if (attempt >= maxAttempts || entityManagers.joinsTransaction()) {
+                    throw new OptimisticLockConflictException(Book.class, id, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the book and sets only the given fields, with dynamic update the UPDATE statement contains just
+     * the columns that changed and the version. All fields and values are checked before the book is loaded,
+     * a rejected patch leaves a shared persistence context untouched.
+     */
+    @Override
+    public Book patchBook(Long id, Map<String, Object> changes) {
+        changes.forEach(BookDaoImpl::checkChange);
+        Book patched;
         try {
-            em.getTransaction().begin();
-            Book book = em.find(Book.class, id);
-            em.remove(book);
-            em.flush();
-            em.getTransaction().commit();
-        } finally {
-            em.close();
+            patched = entityManagers.write(em -> {
+                Book book = em.find(Book.class, id);
+                if (book == null) {
+                    throw new EntityNotFoundException("No book found for id " + id);
+                }
+                changes.forEach((field, value) -> applyChange(book, field, value));
+                em.flush();
+                return book;
+            });
+        } catch (OptimisticLockException e) {
+            throw new OptimisticLockConflictException(Book.class, id, e);
+        }
+        publish(BookChangedEvent.saved(List.of(patched)));
+        return patched;
+    }
+
+    private static void checkChange(String field, Object value) {
+        if (!PATCHABLE_FIELDS.contains(field)) {
+            throw new IllegalArgumentException("Book field " + field + " cannot be patched");
+        }
+        if ("authorId".equals(field)) {
+            if (value != null && !(value instanceof Number)) {
+                throw new IllegalArgumentException("Book field authorId expects a number, got " + value);
+            }
+        } else if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Book field " + field + " expects a string, got " + value);
         }
     }
 
+    // the change has passed checkChange
+    private static void applyChange(Book book, String field, Object value) {
+        switch (field) {
+            case "title" -> book.setTitle((String) value);
+            case "isbn" -> book.setIsbn((String) value);
+            case "publisher" -> book.setPublisher((String) value);
+            case "authorId" -> book.setAuthorId(value == null ? null : ((Number) value).longValue());
+            default -> throw new IllegalStateException("Unchecked book field " + field);
+        }
+    }
+
+    @Override
+    public void deleteBookById(Long id) {
+        entityManagers.write(em -> {
+            // a single row goes through the persistence context, only its own cache entries are evicted
+            em.remove(em.getReference(Book.class, id));
+            em.flush();
+            return null;
+        });
+        publish(BookChangedEvent.deleted(List.of(id)));
+    }
+
+    @Override
+    public int deleteBooksByIds(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        int deletedCount = entityManagers.write(em -> {
+            int deleted = 0;
+            // keeps each IN list well below the bind parameter limit of the driver
+            for (int from = 0; from < idList.size(); from += IN_LIST_SIZE) {
+                deleted += em.createNamedQuery("delete_books_by_ids")
+                        .setParameter("ids", idList.subList(from, Math.min(from + IN_LIST_SIZE, idList.size())))
+                        .executeUpdate();
+            }
+            idList.forEach(id -> detach(em, id));
+            return deleted;
+        });
+        publish(BookChangedEvent.deleted(idList));
+        return deletedCount;
+    }
+
+    @Override
+    public int deleteBooksByPublisher(String publisher) {
+        int deleted = entityManagers.write(em -> em.createNamedQuery("delete_books_by_publisher")
+                .setParameter("publisher", publisher)
+                .executeUpdate());
+        publish(BookChangedEvent.bulk());
+        return deleted;
+    }
+
+    @Override
+    public int updatePublisher(String oldPublisher, String newPublisher) {
+        int updated = entityManagers.write(em -> em.createNamedQuery("update_publisher")
+                .setParameter("old_publisher", oldPublisher)
+                .setParameter("new_publisher", newPublisher)
+                .executeUpdate());
+        publish(BookChangedEvent.bulk());
+        return updated;
+    }
+
     @Override
     public List<Book> findAllBooks() {
-        EntityManager em = this.getEntityManager();
-        try {
+        return entityManagers.read(em -> {
             TypedQuery<Book> query = em.createNamedQuery("find_all_books", Book.class);
             return query.getResultList();
-        } finally {
-            em.close();
+        });
+    }
+
+    @Override
+    public void forEachBook(int fetchSize, Consumer<Book> action) {
+        forEach("find_all_books", fetchSize, action);
+    }
+
+    /**
+     * Like forEachBook, with the author of each book fetched in the same row.
+     */
+    @Override
+    public void forEachBookWithAuthor(int fetchSize, Consumer<Book> action) {
+        forEach("find_all_books_with_authors", fetchSize, action);
+    }
+
+    private void forEach(String queryName, int fetchSize, Consumer<Book> action) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be at least 1, got " + fetchSize);
+        }
+        entityManagers.readIsolated(em -> {
+            TypedQuery<Book> query = em.createNamedQuery(queryName, Book.class);
+            query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+
+            try (Stream<Book> books = query.getResultStream()) {
+                Iterator<Book> iterator = books.iterator();
+                int count = 0;
+                while (iterator.hasNext()) {
+                    action.accept(iterator.next());
+                    if (++count % fetchSize == 0) {
+                        // detach what has been handed out so the persistence context stays bounded
+                        em.clear();
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public KeysetPage<Book, Long> findBooksAfter(Long lastId, int limit) {
+        checkLimit(limit);
+        return entityManagers.read(em -> {
+            TypedQuery<Book> query;
+            if (lastId == null) {
+                query = em.createNamedQuery("find_books_first_page", Book.class);
+            } else {
+                query = em.createNamedQuery("find_books_after_id", Book.class);
+                query.setParameter("last_id", lastId);
+            }
+            return toKeysetPage(query, limit);
+        });
+    }
+
+    @Override
+    public KeysetPage<Book, Long> findBooksWithAuthors(Long lastId, int limit) {
+        checkLimit(limit);
+        return entityManagers.read(em -> {
+            TypedQuery<Book> query;
+            if (lastId == null) {
+                query = em.createNamedQuery("find_books_with_authors_first_page", Book.class);
+            } else {
+                query = em.createNamedQuery("find_books_with_authors_after_id", Book.class);
+                query.setParameter("last_id", lastId);
+            }
+            return toKeysetPage(query, limit);
+        });
+    }
+
+    @Override
+    public List<BookSummary> findBookSummaries(Long lastId, int limit) {
+        checkLimit(limit);
+        return entityManagers.read(em -> {
+            TypedQuery<BookSummary> query;
+            if (lastId == null) {
+                query = em.createNamedQuery("find_book_summaries_first_page", BookSummary.class);
+            } else {
+                query = em.createNamedQuery("find_book_summaries_after_id", BookSummary.class);
+                query.setParameter("last_id", lastId);
+            }
+            query.setMaxResults(limit);
+            return query.getResultList();
+        });
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1, got " + limit);
+        }
+    }
+
+    private static KeysetPage<Book, Long> toKeysetPage(TypedQuery<Book> query, int limit) {
+        // one extra row tells us whether there is a next page
+        query.setMaxResults(limit + 1);
+        List<Book> books = query.getResultList();
+
+        if (books.size() <= limit) {
+            return new KeysetPage<>(books, null);
+        }
+        List<Book> content = books.subList(0, limit);
+        return new KeysetPage<>(content, content.get(limit - 1).getId());
+    }
+
+    private void publish(BookChangedEvent event) {
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(event);
         }
     }
 
-    private EntityManager getEntityManager() {
-        return this.emf.createEntityManager();
+    /**
+     * Drops a deleted book from a shared persistence context, getReference does not hit the database.
+     */
+    private static void detach(EntityManager em, Long id) {
+        em.detach(em.getReference(Book.class, id));
     }
 }
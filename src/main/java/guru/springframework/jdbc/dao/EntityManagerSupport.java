@@ -0,0 +1,115 @@
+package guru.springframework.jdbc.dao;
+
+import guru.springframework.jdbc.datasource.ReplicaRouting;
+import guru.springframework.jdbc.datasource.ReplicaRoutingDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Function;
+
+/**
+ * Runs DAO work against the EntityManager bound to the current Spring managed transaction when there is one,
+ * so several DAO calls in a service operation share one session, connection and first-level cache.
+ * Outside a transaction every call gets its own EntityManager, and writes their own local transaction.
+ * <p>
+ * Reads on their own EntityManager run read-only: loaded entities are not snapshotted for dirty checking and
+ * queries do not trigger auto flushes. Reads joining a transaction follow its read-only flag instead, entities
+ * loaded there may still be modified by the caller.
+ * <p>
+ * Reads on their own EntityManager are also marked for {@link ReplicaRouting}, with a replica configured they
+ * may not see a write that was committed just before, unless the caller runs them through
+ * {@link ReplicaRouting#primary}. When their connection comes from the replica they only read the
+ * second-level, natural id and query caches and never fill them, a lagging replica would otherwise keep serving
+ * stale state to the primary for as long as the cache entry lives. Reads that fell back to the primary fill them.
+ */
+final class EntityManagerSupport {
+
+    private final EntityManagerFactory emf;
+    private final boolean replicaConfigured;
+
+    EntityManagerSupport(EntityManagerFactory emf) {
+        this.emf = emf;
+        this.replicaConfigured = emf instanceof EntityManagerFactoryInfo info
+                && info.getDataSource() instanceof ReplicaRoutingDataSource;
+    }
+
+    <T> T read(Function<EntityManager, T> work) {
+        EntityManager shared = getTransactionalEntityManager();
+        if (shared != null) {
+            return work.apply(shared);
+        }
+        return readIsolated(work);
+    }
+
+    /**
+     * Always uses a new EntityManager, for work such as cursor streaming that clears its persistence
+     * context and must not detach the entities of an enclosing transaction.
+     */
+    <T> T readIsolated(Function<EntityManager, T> work) {
+        return ReplicaRouting.readOnly(() -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                Session session = em.unwrap(Session.class);
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+                if (replicaConfigured && ReplicaRouting.isReadOnly() && connectsToReplica(session)) {
+                    session.setCacheMode(CacheMode.GET);
+                }
+                return work.apply(em);
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    <T> T write(Function<EntityManager, T> work) {
+        EntityManager shared = getTransactionalEntityManager();
+        if (shared != null) {
+            // committed or rolled back by the enclosing transaction
+            return work.apply(shared);
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            T result = work.apply(em);
+            em.getTransaction().commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Whether DAO work on this thread joins a Spring managed transaction rather than running on its own.
+     */
+    boolean joinsTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Takes the session's connection up front, the lag probe may change its mind before a lazily acquired one.
+     * The session holds it until it is closed, so every query of the read uses the route checked here.
+     */
+    private static boolean connectsToReplica(Session session) {
+        return session.doReturningWork(connection -> ReplicaRouting.isOnReplica());
+    }
+
+    private EntityManager getTransactionalEntityManager() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        return EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+    }
+}
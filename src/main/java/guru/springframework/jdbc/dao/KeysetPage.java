@@ -0,0 +1,14 @@
+package guru.springframework.jdbc.dao;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) query. {@code nextCursor} is the key of the last row on the page,
+ * or {@code null} when there are no more rows.
+ */
+public record KeysetPage<T, C>(List<T> content, C nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
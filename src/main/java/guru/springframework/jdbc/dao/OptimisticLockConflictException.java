@@ -0,0 +1,24 @@
+package guru.springframework.jdbc.dao;
+
+/**
+ * Thrown when an update was based on a version of the row that another writer has changed since it was read.
+ */
+public class OptimisticLockConflictException extends RuntimeException {
+
+    private final Class<?> entityClass;
+    private final Object id;
+
+    public OptimisticLockConflictException(Class<?> entityClass, Object id, Throwable cause) {
+        super(entityClass.getSimpleName() + " " + id + " was updated concurrently", cause);
+        this.entityClass = entityClass;
+        this.id = id;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public Object getId() {
+        return id;
+    }
+}
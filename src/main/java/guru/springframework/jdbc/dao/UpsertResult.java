@@ -0,0 +1,11 @@
+package guru.springframework.jdbc.dao;
+
+/**
+ * Outcome of an upsert, rows that already existed count as updated even when no value changed.
+ */
+public record UpsertResult(int inserted, int updated) {
+
+    public UpsertResult plus(UpsertResult other) {
+        return new UpsertResult(inserted + other.inserted, updated + other.updated);
+    }
+}
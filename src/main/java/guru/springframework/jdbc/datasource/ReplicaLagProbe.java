@@ -0,0 +1,94 @@
+package guru.springframework.jdbc.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether the replica is close enough to the primary to serve reads. The lag query runs on a thread of
+ * its own once per check interval, request threads only read the last result and never wait on the replica.
+ * Until the first check succeeded the replica counts as unusable.
+ * <p>
+ * The lag query must return the lag in seconds in {@code lagColumn} of its first row. No row counts as no lag,
+ * a NULL lag (replication stopped) or a failing query as unusable.
+ */
+public class ReplicaLagProbe implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagProbe.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final long maxLagSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagProbe(DataSource replica, String lagQuery, String lagColumn, Duration maxLag,
+                           Duration checkInterval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLagSeconds = maxLag.toSeconds();
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-lag-probe-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        // a fixed delay must be positive
+        long intervalMillis = Math.max(1, checkInterval.toMillis());
+        this.scheduler.scheduleWithFixedDelay(this::refresh, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void refresh() {
+        try {
+            replicaUsable = check();
+        } catch (RuntimeException e) {
+            // an escaping exception would cancel the schedule
+            log.warn("Replica lag check failed, reads go to the primary", e);
+            replicaUsable = false;
+        }
+    }
+
+    private boolean check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(1);
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                if (!resultSet.next()) {
+                    return true;
+                }
+                long lag = resultSet.getLong(lagColumn);
+                if (resultSet.wasNull()) {
+                    log.warn("Replica is not replicating, reads go to the primary");
+                    return false;
+                }
+                if (lag > maxLagSeconds) {
+                    log.warn("Replica is {}s behind, reads go to the primary", lag);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            log.warn("Replica lag check failed, reads go to the primary", e);
+            return false;
+        }
+    }
+}
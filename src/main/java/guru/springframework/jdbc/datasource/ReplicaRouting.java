@@ -0,0 +1,54 @@
+package guru.springframework.jdbc.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks work on the current thread as read-only, connections it acquires from
+ * {@link ReplicaRoutingDataSource} may come from the replica pool. Work run through {@link #primary} stays on the
+ * primary even where it is marked read-only further down.
+ */
+public final class ReplicaRouting {
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private static final ThreadLocal<Boolean> PRIMARY = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    private static final ThreadLocal<Boolean> ON_REPLICA = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private ReplicaRouting() {
+    }
+
+    public static <T> T readOnly(Supplier<T> work) {
+        return with(READ_ONLY, work);
+    }
+
+    /**
+     * For reads that have to see what was committed just before, a lagging replica would miss it.
+     */
+    public static <T> T primary(Supplier<T> work) {
+        return with(PRIMARY, work);
+    }
+
+    public static boolean isReadOnly() {
+        return READ_ONLY.get() && !PRIMARY.get();
+    }
+
+    /**
+     * Whether the connection this thread last took from {@link ReplicaRoutingDataSource} came from the replica,
+     * read-only work falls back to the primary while the replica lags behind.
+     */
+    public static boolean isOnReplica() {
+        return ON_REPLICA.get();
+    }
+
+    static void routed(boolean replica) {
+        ON_REPLICA.set(replica);
+    }
+
+    private static <T> T with(ThreadLocal<Boolean> flag, Supplier<T> work) {
+        Boolean previous = flag.get();
+        flag.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            flag.set(previous);
+        }
+    }
+}
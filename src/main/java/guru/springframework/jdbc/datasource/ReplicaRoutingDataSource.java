@@ -0,0 +1,32 @@
+package guru.springframework.jdbc.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Hands out replica connections to read-only work and primary connections to everything else, including
+ * read-only work while the replica lags behind.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagProbe lagProbe;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagProbe lagProbe) {
+        this.lagProbe = lagProbe;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replica = ReplicaRouting.isReadOnly() && lagProbe.isReplicaUsable();
+        ReplicaRouting.routed(replica);
+        return replica ? Route.REPLICA : Route.PRIMARY;
+    }
+}
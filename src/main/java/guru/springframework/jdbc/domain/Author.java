@@ -1,19 +1,44 @@
 package guru.springframework.jdbc.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @NamedQueries({
         @NamedQuery(name = "author_find_all", query = "FROM Author"),
         @NamedQuery(name = "find_by_name", query = "FROM Author a " +
-                "WHERE a.firstName = :first_name and a.lastName = :last_name")
+                "WHERE a.firstName = :first_name and a.lastName = :last_name"),
+        @NamedQuery(name = "find_authors_by_last_name_prefix", query = "FROM Author a " +
+                "WHERE a.lastName like :prefix escape '!' ORDER BY a.lastName, a.firstName"),
+        @NamedQuery(name = "find_author_name_by_id", query = "SELECT " +
+                "new guru.springframework.jdbc.domain.AuthorName(a.id, a.firstName, a.lastName) FROM Author a " +
+                "WHERE a.id = :id"),
+        @NamedQuery(name = "delete_authors_by_ids", query = "DELETE FROM Author a WHERE a.id IN :ids"),
+        @NamedQuery(name = "find_authors_first_page", query = "FROM Author a ORDER BY a.lastName, a.id"),
+        @NamedQuery(name = "find_authors_after", query = "FROM Author a " +
+                "WHERE a.lastName > :last_name or (a.lastName = :last_name and a.id > :last_id) " +
+                "ORDER BY a.lastName, a.id"),
+        // null last names sort first, the rest of them and every named author follow
+        @NamedQuery(name = "find_authors_after_null_last_name", query = "FROM Author a " +
+                "WHERE (a.lastName IS NULL and a.id > :last_id) or a.lastName IS NOT NULL " +
+                "ORDER BY a.lastName, a.id")
 })
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "author")
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "author_id_generator")
+    @TableGenerator(name = "author_id_generator", table = "id_generator", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "author", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     private String firstName;
     private String lastName;
 
@@ -25,6 +50,14 @@ public class Author {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getFirstName() {
         return firstName;
     }
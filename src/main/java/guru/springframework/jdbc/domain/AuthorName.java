@@ -0,0 +1,7 @@
+package guru.springframework.jdbc.domain;
+
+/**
+ * Projection of an author's name, loaded without materializing an Author entity.
+ */
+public record AuthorName(Long id, String firstName, String lastName) {
+}
@@ -2,25 +2,67 @@ package guru.springframework.jdbc.domain;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.Objects;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
+@NaturalIdCache
 @NamedQueries({
         @NamedQuery(name = "find_book_by_title", query = "FROM Book b WHERE b.title = :title"),
-        @NamedQuery(name = "find_all_books", query = "FROM Book")
+        @NamedQuery(name = "find_all_books", query = "FROM Book"),
+        @NamedQuery(name = "find_all_books_with_authors", query = "FROM Book b LEFT JOIN FETCH b.author ORDER BY b.id"),
+        @NamedQuery(name = "find_books_by_isbns", query = "FROM Book b WHERE b.isbn IN :isbns"),
+        @NamedQuery(name = "find_books_first_page", query = "FROM Book b ORDER BY b.id"),
+        @NamedQuery(name = "find_books_after_id", query = "FROM Book b WHERE b.id > :last_id ORDER BY b.id"),
+        @NamedQuery(name = "find_books_with_authors_first_page", query = "FROM Book b " +
+                "LEFT JOIN FETCH b.author ORDER BY b.id"),
+        @NamedQuery(name = "find_books_with_authors_after_id", query = "FROM Book b " +
+                "LEFT JOIN FETCH b.author WHERE b.id > :last_id ORDER BY b.id"),
+        @NamedQuery(name = "find_book_summaries_first_page", query = "SELECT " +
+                "new guru.springframework.jdbc.domain.BookSummary(b.id, b.title, b.isbn) FROM Book b ORDER BY b.id"),
+        @NamedQuery(name = "find_book_summaries_after_id", query = "SELECT " +
+                "new guru.springframework.jdbc.domain.BookSummary(b.id, b.title, b.isbn) FROM Book b " +
+                "WHERE b.id > :last_id ORDER BY b.id"),
+        @NamedQuery(name = "find_books_by_author", query = "FROM Book b WHERE b.authorId = :author_id ORDER BY b.id"),
+        @NamedQuery(name = "delete_books_by_ids", query = "DELETE FROM Book b WHERE b.id IN :ids"),
+        @NamedQuery(name = "delete_books_by_publisher", query = "DELETE FROM Book b WHERE b.publisher = :publisher"),
+        @NamedQuery(name = "update_publisher", query = "UPDATE Book b SET b.publisher = :new_publisher, " +
+                "b.version = b.version + 1 WHERE b.publisher = :old_publisher")
 })
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "book_id_generator")
+    @TableGenerator(name = "book_id_generator", table = "id_generator", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "book", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     private String title;
+
+    @NaturalId(mutable = true)
     private String isbn;
+
     private String publisher;
     private Long authorId;
 
+    /**
+     * Read-only view of author_id, written through authorId. Only initialized when loaded with a fetch join.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id", insertable = false, updatable = false)
+    private Author author;
+
     public Book() {
 
     }
@@ -54,6 +96,14 @@ public class Book {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -85,4 +135,8 @@ public class Book {
     public void setAuthorId(Long authorId) {
         this.authorId = authorId;
     }
+
+    public Author getAuthor() {
+        return author;
+    }
 }
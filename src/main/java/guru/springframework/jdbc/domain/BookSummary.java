@@ -0,0 +1,7 @@
+package guru.springframework.jdbc.domain;
+
+/**
+ * Projection of the book columns listings need, loaded without materializing a Book entity.
+ */
+public record BookSummary(Long id, String title, String isbn) {
+}
@@ -0,0 +1,44 @@
+package guru.springframework.jdbc.lookup;
+
+import guru.springframework.jdbc.dao.AuthorChangedEvent;
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.domain.Author;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Author lookups by name with the single-flight and miss caching of {@link BookLookupService}.
+ */
+@Component
+public class AuthorLookupService {
+
+    private final AuthorDao authorDao;
+    private final SingleFlightLookup<Name, Author> byName;
+
+    public AuthorLookupService(AuthorDao authorDao,
+                               @Value("${dao.lookup.miss-ttl:5s}") Duration missTtl,
+                               @Value("${dao.lookup.max-misses:10000}") long maxMisses) {
+        this.authorDao = authorDao;
+        this.byName = new SingleFlightLookup<>(missTtl, maxMisses);
+    }
+
+    public Optional<Author> findByName(String firstName, String lastName) {
+        return byName.get(new Name(firstName, lastName), () -> authorDao.findAuthorByName(firstName, lastName));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuthorChanged(AuthorChangedEvent event) {
+        if (event.type() == AuthorChangedEvent.Type.SAVED) {
+            byName.invalidate(event.saved().stream()
+                    .map(author -> new Name(author.getFirstName(), author.getLastName()))
+                    .toList());
+        }
+    }
+
+    private record Name(String firstName, String lastName) {
+    }
+}
@@ -0,0 +1,62 @@
+package guru.springframework.jdbc.lookup;
+
+import guru.springframework.jdbc.dao.BookChangedEvent;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.domain.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Book lookups for hot keys: concurrent lookups of the same isbn or title share one query and misses are
+ * remembered for {@code dao.lookup.miss-ttl}. Callers of one flight share the returned book, treat it as read-only.
+ */
+@Component
+public class BookLookupService {
+
+    private final BookDao bookDao;
+    private final SingleFlightLookup<String, Book> byIsbn;
+    private final SingleFlightLookup<String, Book> byTitle;
+
+    public BookLookupService(BookDao bookDao,
+                             @Value("${dao.lookup.miss-ttl:5s}") Duration missTtl,
+                             @Value("${dao.lookup.max-misses:10000}") long maxMisses) {
+        this.bookDao = bookDao;
+        this.byIsbn = new SingleFlightLookup<>(missTtl, maxMisses);
+        this.byTitle = new SingleFlightLookup<>(missTtl, maxMisses);
+    }
+
+    public Optional<Book> findByIsbn(String isbn) {
+        return byIsbn.get(isbn, () -> bookDao.findByISBN(isbn));
+    }
+
+    public Optional<Book> findByTitle(String title) {
+        return byTitle.get(title, () -> bookDao.findBookByTitle(title));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        switch (event.type()) {
+            case SAVED -> {
+                byIsbn.invalidate(event.saved().stream().map(Book::getIsbn).filter(Objects::nonNull).toList());
+                byTitle.invalidate(event.saved().stream().map(Book::getTitle).filter(Objects::nonNull).toList());
+            }
+            // the event does not carry the titles the upsert replaced
+            case UPSERTED -> {
+                byIsbn.invalidate(event.upsertedIsbns());
+                byTitle.invalidateAll();
+            }
+            case BULK -> {
+                byIsbn.invalidateAll();
+                byTitle.invalidateAll();
+            }
+            // a delete cannot turn a miss into a hit
+            case DELETED -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package guru.springframework.jdbc.lookup;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.springframework.jdbc.datasource.ReplicaRouting;
+import jakarta.persistence.NoResultException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load per key at a time, callers asking for a key that is already being loaded wait for that
+ * load and share its result or exception. Keys that were not found are remembered for a short time.
+ * <p>
+ * Found values are not cached, they are only shared between callers of the same flight. Inside a Spring managed
+ * transaction loads bypass both, the result has to come from the transaction's own persistence context.
+ * <p>
+ * Loads read the primary even with a replica configured. A miss is remembered, and one read from a lagging replica
+ * right after the invalidation would hide a just committed row for the whole miss TTL.
+ */
+final class SingleFlightLookup<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<Optional<V>>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<K, Boolean> misses;
+    // bumped by every invalidation, a load that overlapped one must not remember its miss
+    private final AtomicLong generation = new AtomicLong();
+
+    SingleFlightLookup(Duration missTtl, long maxMisses) {
+        this.misses = Caffeine.newBuilder()
+                .expireAfterWrite(missTtl)
+                .maximumSize(maxMisses)
+                .build();
+    }
+
+    Optional<V> get(K key, Supplier<V> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return load(loader);
+        }
+        if (misses.getIfPresent(key) != null) {
+            return Optional.empty();
+        }
+
+        CompletableFuture<Optional<V>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            return await(running);
+        }
+
+        long startGeneration = generation.get();
+        try {
+            Optional<V> result = load(loader);
+            if (result.isEmpty()) {
+                misses.put(key, Boolean.TRUE);
+                if (generation.get() != startGeneration) {
+                    misses.invalidate(key);
+                }
+            }
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    void invalidate(Collection<K> keys) {
+        generation.incrementAndGet();
+        misses.invalidateAll(keys);
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        misses.invalidateAll();
+    }
+
+    private Optional<V> load(Supplier<V> loader) {
+        try {
+            return Optional.ofNullable(ReplicaRouting.primary(loader));
+        } catch (NoResultException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<V> await(CompletableFuture<Optional<V>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
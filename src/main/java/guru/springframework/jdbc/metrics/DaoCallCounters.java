@@ -0,0 +1,49 @@
+package guru.springframework.jdbc.metrics;
+
+/**
+ * JDBC and Hibernate activity of the current thread. The counters only grow, {@link DaoMetricsAspect} takes
+ * the difference around a DAO call, so nested or unrelated activity on the thread does not need resetting.
+ */
+public final class DaoCallCounters {
+    private static final ThreadLocal<DaoCallCounters> CURRENT = ThreadLocal.withInitial(DaoCallCounters::new);
+
+    private long statements;
+    private long entities;
+    private long connectionAcquireNanos;
+    private long acquireStartNanos;
+
+    private DaoCallCounters() {
+    }
+
+    public static DaoCallCounters current() {
+        return CURRENT.get();
+    }
+
+    public void statementExecuted() {
+        statements++;
+    }
+
+    public void entityLoaded() {
+        entities++;
+    }
+
+    void connectionRequested() {
+        acquireStartNanos = System.nanoTime();
+    }
+
+    void connectionAcquired() {
+        connectionAcquireNanos += System.nanoTime() - acquireStartNanos;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getEntities() {
+        return entities;
+    }
+
+    public long getConnectionAcquireNanos() {
+        return connectionAcquireNanos;
+    }
+}
@@ -0,0 +1,142 @@
+package guru.springframework.jdbc.metrics;
+
+import guru.springframework.jdbc.dao.KeysetPage;
+import guru.springframework.jdbc.dao.UpsertResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latency, rows, JDBC statements, entities loaded and connection acquisition time per DAO method,
+ * and logs calls slower than {@code dao.metrics.slow-threshold}.
+ * <p>
+ * The meters of a method are looked up once and cached, a call only reads the thread local counters and
+ * records into existing meters.
+ */
+@Aspect
+@Component
+public class DaoMetricsAspect {
+    private static final Logger log = LoggerFactory.getLogger(DaoMetricsAspect.class);
+
+    private final MeterRegistry registry;
+    private final long slowThresholdNanos;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public DaoMetricsAspect(MeterRegistry registry,
+                            @Value("${dao.metrics.slow-threshold:500ms}") Duration slowThreshold) {
+        this.registry = registry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    @Around("execution(* guru.springframework.jdbc.dao.BookDao.*(..)) " +
+            "|| execution(* guru.springframework.jdbc.dao.AuthorDao.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMeters methodMeters = meters.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(),
+                method -> new MethodMeters(registry, joinPoint.getTarget().getClass().getSimpleName(), method.getName()));
+
+        DaoCallCounters counters = DaoCallCounters.current();
+        long statements = counters.getStatements();
+        long entities = counters.getEntities();
+        long acquireNanos = counters.getConnectionAcquireNanos();
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            methodMeters.errors.increment();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            long callStatements = counters.getStatements() - statements;
+            long callEntities = counters.getEntities() - entities;
+            int rows = rows(result);
+
+            methodMeters.latency.record(elapsed, TimeUnit.NANOSECONDS);
+            methodMeters.connectionAcquire.record(counters.getConnectionAcquireNanos() - acquireNanos,
+                    TimeUnit.NANOSECONDS);
+            methodMeters.statements.record(callStatements);
+            methodMeters.entities.record(callEntities);
+            methodMeters.rows.record(rows);
+
+            if (elapsed > slowThresholdNanos) {
+                log.warn("Slow DAO call {}.{} took {} ms: {} statements, {} entities, {} rows",
+                        methodMeters.dao, methodMeters.method, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        callStatements, callEntities, rows);
+            }
+        }
+    }
+
+    /**
+     * Rows returned by finders, rows affected by bulk statements.
+     */
+    static int rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof KeysetPage<?, ?> page) {
+            return page.content().size();
+        }
+        if (result instanceof UpsertResult upsert) {
+            return upsert.inserted() + upsert.updated();
+        }
+        if (result instanceof Number number) {
+            return number.intValue();
+        }
+        return 1;
+    }
+
+    private static final class MethodMeters {
+        final String dao;
+        final String method;
+        final Timer latency;
+        final Timer connectionAcquire;
+        final DistributionSummary statements;
+        final DistributionSummary entities;
+        final DistributionSummary rows;
+        final Counter errors;
+
+        MethodMeters(MeterRegistry registry, String dao, String method) {
+            this.dao = dao;
+            this.method = method;
+            this.latency = Timer.builder("dao.method")
+                    .tag("dao", dao).tag("method", method)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(registry);
+            this.connectionAcquire = Timer.builder("dao.method.connection.acquire")
+                    .tag("dao", dao).tag("method", method)
+                    .register(registry);
+            this.statements = summary(registry, "dao.method.statements", dao, method);
+            this.entities = summary(registry, "dao.method.entities", dao, method);
+            this.rows = summary(registry, "dao.method.rows", dao, method);
+            this.errors = Counter.builder("dao.method.errors")
+                    .tag("dao", dao).tag("method", method)
+                    .register(registry);
+        }
+
+        private static DistributionSummary summary(MeterRegistry registry, String name, String dao, String method) {
+            return DistributionSummary.builder(name)
+                    .tag("dao", dao).tag("method", method)
+                    .register(registry);
+        }
+    }
+}
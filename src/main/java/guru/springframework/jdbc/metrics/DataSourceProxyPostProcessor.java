@@ -0,0 +1,44 @@
+package guru.springframework.jdbc.metrics;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the pooled DataSource so statements and connection checkouts reach {@link JdbcActivityListener},
+ * and optionally a query log listener. The proxy delegates unwrap, pool metrics still find the
+ * HikariDataSource behind it. Routing DataSources are left alone, the pools they route to are wrapped instead
+ * so statements are counted once.
+ */
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final QueryExecutionListener queryLogListener;
+
+    public DataSourceProxyPostProcessor() {
+        this(null);
+    }
+
+    public DataSourceProxyPostProcessor(QueryExecutionListener queryLogListener) {
+        this.queryLogListener = queryLogListener;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)
+                && !(bean instanceof AbstractRoutingDataSource)) {
+            JdbcActivityListener listener = new JdbcActivityListener();
+            ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(beanName, dataSource)
+                    .listener(listener)
+                    .methodListener(listener);
+            if (queryLogListener != null) {
+                builder.listener(queryLogListener);
+            }
+            return builder.build();
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,15 @@
+package guru.springframework.jdbc.metrics;
+
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * Counts entities loaded by the current thread, from the database or the second-level cache.
+ */
+public class EntityLoadListener implements PostLoadEventListener {
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        DaoCallCounters.current().entityLoaded();
+    }
+}
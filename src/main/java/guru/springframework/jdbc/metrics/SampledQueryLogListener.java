@@ -0,0 +1,62 @@
+package guru.springframework.jdbc.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Logs one in {@code sampleRate} statements and every statement slower than the threshold as a single
+ * key=value line on the {@code dao.query} logger. Bind values are never logged.
+ */
+public class SampledQueryLogListener implements QueryExecutionListener {
+    private static final Logger log = LoggerFactory.getLogger("dao.query");
+
+    private final int sampleRate;
+    private final long slowThresholdMillis;
+
+    public SampledQueryLogListener(int sampleRate, Duration slowThreshold) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("sampleRate must be at least 1, was " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThreshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        if (elapsed >= slowThresholdMillis) {
+            if (log.isWarnEnabled()) {
+                log.warn(format(execInfo, queryInfoList, "slow"));
+            }
+        } else if (ThreadLocalRandom.current().nextInt(sampleRate) == 0 && log.isInfoEnabled()) {
+            log.info(format(execInfo, queryInfoList, "sampled"));
+        }
+    }
+
+    private static String format(ExecutionInfo execInfo, List<QueryInfo> queryInfoList, String reason) {
+        String sql = queryInfoList.stream()
+                .map(QueryInfo::getQuery)
+                .collect(Collectors.joining("; "))
+                .replaceAll("\\s+", " ")
+                .replace('"', '\'');
+        return "reason=" + reason +
+                " elapsed_ms=" + execInfo.getElapsedTime() +
+                " success=" + execInfo.isSuccess() +
+                " batch=" + execInfo.isBatch() +
+                " batch_size=" + execInfo.getBatchSize() +
+                " thread=" + Thread.currentThread().getName() +
+                " sql=\"" + sql + "\"";
+    }
+}
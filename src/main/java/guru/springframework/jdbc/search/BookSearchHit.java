@@ -0,0 +1,4 @@
+package guru.springframework.jdbc.search;
+
+public record BookSearchHit(Long id, String isbn, String title, String publisher, float score) {
+}
@@ -0,0 +1,312 @@
+package guru.springframework.jdbc.search;
+
+import guru.springframework.jdbc.dao.BookChangedEvent;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.datasource.ReplicaRouting;
+import guru.springframework.jdbc.domain.Book;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process Lucene index over book titles and publishers. It is built from the book table once the application
+ * is ready and kept current from {@link BookChangedEvent}s after their transaction committed. Upserted books are
+ * read back and indexed in the background. Bulk statements reindex every book in the background, until that is
+ * done searches may find the books they changed in their previous state.
+ * <p>
+ * The index lives in memory unless {@code book.search.index-dir} names a directory.
+ */
+@Component
+public class BookSearchIndex implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    static final String ID = "id";
+    static final String ISBN = "isbn";
+    static final String TITLE = "title";
+    static final String PUBLISHER = "publisher";
+    // the rebuild that last indexed the document, a rebuild drops the documents it did not reach
+    static final String GENERATION = "generation";
+
+    private static final int FETCH_SIZE = 500;
+    // a title match counts twice as much as a publisher match
+    private static final Map<String, Float> BOOSTS = Map.of(TITLE, 2f, PUBLISHER, 1f);
+    private static final int MAX_PAGE_SIZE = 100;
+    // the collector holds a slot for every hit up to the end of the requested page
+    private static final int MAX_WINDOW = 10_000;
+
+    private final BookDao bookDao;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // unique across restarts, an index directory may hold documents of an earlier run
+    private final AtomicLong generations = new AtomicLong(System.currentTimeMillis());
+
+    // guards writes to the index; non-null while a rebuild runs, collecting the changes it has to replay
+    private final Object lock = new Object();
+    private List<BookChangedEvent> changesDuringRebuild;
+    private String generation = Long.toString(generations.get());
+
+    public BookSearchIndex(BookDao bookDao, @Value("${book.search.index-dir:}") String indexDir) throws IOException {
+        this.bookDao = bookDao;
+        this.directory = indexDir.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("book-search-");
+        threadFactory.setDaemon(true);
+        this.rebuildExecutor = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    /**
+     * Queues a rebuild on the index thread. Requests that arrive before the queued rebuild started are served
+     * by it, a request during a running rebuild queues one more.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Rebuilding the book search index failed, books it did not reach keep their " +
+                            "previous state", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reindexes the book table from the primary over the current index, then drops the documents of books it did
+     * not see. Searches and incremental changes keep using the index meanwhile, changes that arrive during the
+     * rebuild are replayed at its end, the table snapshot may predate them. Nothing is deleted before the table
+     * was read, a failed rebuild leaves every book indexed, some in their previous state. Rebuilds run one at a
+     * time.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        String rebuildGeneration = Long.toString(generations.incrementAndGet());
+        synchronized (lock) {
+            generation = rebuildGeneration;
+            changesDuringRebuild = new ArrayList<>();
+        }
+        try {
+            // a replica may not have applied the bulk statement that asked for this rebuild yet
+            ReplicaRouting.primary(() -> {
+                bookDao.forEachBook(FETCH_SIZE, book -> {
+                    try {
+                        writer.updateDocument(idTerm(book.getId()), toDocument(book, rebuildGeneration));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return null;
+            });
+            synchronized (lock) {
+                writer.deleteDocuments(new BooleanQuery.Builder()
+                        .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+                        .add(new TermQuery(new Term(GENERATION, rebuildGeneration)), BooleanClause.Occur.MUST_NOT)
+                        .build());
+                for (BookChangedEvent change : changesDuringRebuild) {
+                    apply(change);
+                }
+                writer.commit();
+                searcherManager.maybeRefresh();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            synchronized (lock) {
+                changesDuringRebuild = null;
+            }
+        }
+        log.info("Indexed {} books in {} ms", writer.getDocStats().numDocs, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        switch (event.type()) {
+            case BULK -> requestRebuild();
+            // read back on the index thread rather than on the writer's
+            case UPSERTED -> rebuildExecutor.execute(() -> {
+                try {
+                    indexUpserted(event.upsertedIsbns());
+                } catch (RuntimeException e) {
+                    log.error("Indexing {} upserted books failed", event.upsertedIsbns().size(), e);
+                }
+            });
+            default -> applyChange(event);
+        }
+    }
+
+    /**
+     * Reads the books under the lock, a save committed after the read is applied after them and wins.
+     */
+    private void indexUpserted(Collection<String> isbns) {
+        synchronized (lock) {
+            applyChange(BookChangedEvent.saved(ReplicaRouting.primary(() -> bookDao.findByISBNs(isbns))));
+        }
+    }
+
+    private void applyChange(BookChangedEvent event) {
+        try {
+            synchronized (lock) {
+                apply(event);
+                if (changesDuringRebuild != null) {
+                    changesDuringRebuild.add(event);
+                }
+                searcherManager.maybeRefresh();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // callers hold the lock
+    private void apply(BookChangedEvent event) throws IOException {
+        switch (event.type()) {
+            case SAVED -> {
+                for (Book book : event.saved()) {
+                    writer.updateDocument(idTerm(book.getId()), toDocument(book, generation));
+                }
+            }
+            case DELETED -> {
+                for (Long id : event.deletedIds()) {
+                    writer.deleteDocuments(idTerm(id));
+                }
+            }
+            case UPSERTED, BULK -> throw new IllegalArgumentException(event.type() + " changes are read back first");
+        }
+    }
+
+    /**
+     * Ranked search over title and publisher, the text is taken literally, query syntax is not interpreted.
+     * Pages hold at most {@value #MAX_PAGE_SIZE} hits and reach no further than the first {@value #MAX_WINDOW}.
+     */
+    public BookSearchPage search(String text, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        int end = pageEnd(page, size);
+        if (end > MAX_WINDOW) {
+            throw new IllegalArgumentException("Cannot page past the first " + MAX_WINDOW + " hits");
+        }
+        if (text == null || text.isBlank()) {
+            return new BookSearchPage(List.of(), 0, page, size);
+        }
+        Query query;
+        try {
+            query = new MultiFieldQueryParser(new String[]{TITLE, PUBLISHER}, analyzer, BOOSTS)
+                    .parse(QueryParser.escape(text));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Cannot search for " + text, e);
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopScoreDocCollector collector = TopScoreDocCollector.create(end, Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs(end - size, size);
+
+                List<BookSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    Document document = searcher.doc(scoreDoc.doc);
+                    hits.add(new BookSearchHit(Long.valueOf(document.get(ID)), document.get(ISBN),
+                            document.get(TITLE), document.get(PUBLISHER), scoreDoc.score));
+                }
+                return new BookSearchPage(hits, collector.getTotalHits(), page, size);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException, InterruptedException {
+        rebuildExecutor.shutdownNow();
+        rebuildExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private static int pageEnd(int page, int size) {
+        try {
+            return Math.addExact(Math.multiplyExact(page, size), size);
+        } catch (ArithmeticException e) {
+            // past any window
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, id.toString());
+    }
+
+    private static Document toDocument(Book book, String generation) {
+        Document document = new Document();
+        document.add(new StringField(ID, book.getId().toString(), Field.Store.YES));
+        document.add(new StringField(GENERATION, generation, Field.Store.NO));
+        if (book.getIsbn() != null) {
+            document.add(new StoredField(ISBN, book.getIsbn()));
+        }
+        if (book.getTitle() != null) {
+            document.add(new TextField(TITLE, book.getTitle(), Field.Store.YES));
+        }
+        if (book.getPublisher() != null) {
+            document.add(new TextField(PUBLISHER, book.getPublisher(), Field.Store.YES));
+        }
+        return document;
+    }
+}
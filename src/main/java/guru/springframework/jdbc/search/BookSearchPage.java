@@ -0,0 +1,13 @@
+package guru.springframework.jdbc.search;
+
+import java.util.List;
+
+/**
+ * One page of search hits, best match first, with the total number of matching books.
+ */
+public record BookSearchPage(List<BookSearchHit> hits, long totalHits, int page, int size) {
+
+    public boolean hasNext() {
+        return (long) (page + 1) * size < totalHits;
+    }
+}
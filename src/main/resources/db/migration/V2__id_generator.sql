@@ -0,0 +1,12 @@
+-- Table backed, pooled id generation for book and author so Hibernate can batch inserts.
+-- Each next_val is seeded one allocation block (allocationSize = 50) above the current max id,
+-- the pooled optimizer hands out [next_val - 49, next_val] on first use.
+create table id_generator
+(
+    name     varchar(255) not null primary key,
+    next_val bigint
+) engine = InnoDB;
+
+insert into id_generator (name, next_val) select 'book', coalesce(max(id), 0) + 50 from book;
+
+insert into id_generator (name, next_val) select 'author', coalesce(max(id), 0) + 50 from author;
@@ -0,0 +1,2 @@
+-- Serves author keyset paging ordered by (last_name, id).
+create index author_last_name_id_idx on author (last_name, id);
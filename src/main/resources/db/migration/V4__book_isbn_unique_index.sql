@@ -0,0 +1,2 @@
+-- isbn is the natural id of book. Duplicate isbn rows must be resolved before this runs.
+create unique index book_isbn_uidx on book (isbn);
@@ -0,0 +1,2 @@
+-- Serves last name prefix search ordered by (last_name, first_name) and the exact first/last name lookups.
+create index author_last_first_name_idx on author (last_name, first_name);
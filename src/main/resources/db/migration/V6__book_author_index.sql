@@ -0,0 +1,2 @@
+-- Explicit index for books by author lookups, replaces the index MySQL created implicitly for book_author_fk.
+create index book_author_id_idx on book (author_id);
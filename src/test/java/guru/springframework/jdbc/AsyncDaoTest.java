@@ -0,0 +1,93 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AsyncAuthorDao;
+import guru.springframework.jdbc.dao.AsyncAuthorDaoImpl;
+import guru.springframework.jdbc.dao.AsyncBookDao;
+import guru.springframework.jdbc.dao.AsyncBookDaoImpl;
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncDaoTest {
+
+    private static final long LOOKUP_MILLIS = 200;
+
+    BookDao bookDao;
+    AuthorDao authorDao;
+    ExecutorService executor;
+    AsyncBookDao asyncBookDao;
+    AsyncAuthorDao asyncAuthorDao;
+
+    @BeforeEach
+    void setUp() {
+        bookDao = mock(BookDao.class);
+        authorDao = mock(AuthorDao.class);
+        executor = Executors.newFixedThreadPool(3);
+        asyncBookDao = new AsyncBookDaoImpl(bookDao, executor);
+        asyncAuthorDao = new AsyncAuthorDaoImpl(authorDao, executor);
+
+        Book book = new Book("Domain-Driven Design", "978-0321125217", "Addison Wesley");
+        Author author = new Author();
+        author.setLastName("Evans");
+
+        when(bookDao.getById(1L)).thenAnswer(slow(book));
+        when(authorDao.getById(1L)).thenAnswer(slow(author));
+        when(authorDao.findBooksByAuthor(1L)).thenAnswer(slow(List.of(book)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCompositeLookupRunsConcurrently() {
+        long start = System.nanoTime();
+        CompletableFuture<Book> book = asyncBookDao.getById(1L);
+        CompletableFuture<Author> author = asyncAuthorDao.getById(1L);
+        CompletableFuture<List<Book>> related = asyncAuthorDao.findBooksByAuthor(1L);
+        CompletableFuture.allOf(book, author, related).join();
+        long concurrentMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        start = System.nanoTime();
+        bookDao.getById(1L);
+        authorDao.getById(1L);
+        authorDao.findBooksByAuthor(1L);
+        long serialMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(book.join().getTitle()).isEqualTo("Domain-Driven Design");
+        assertThat(author.join().getLastName()).isEqualTo("Evans");
+        assertThat(related.join()).hasSize(1);
+        assertThat(serialMillis).isGreaterThanOrEqualTo(3 * LOOKUP_MILLIS);
+        assertThat(concurrentMillis).isLessThan(2 * LOOKUP_MILLIS);
+    }
+
+    @Test
+    void testFailureCompletesFutureExceptionally() {
+        when(bookDao.getById(2L)).thenThrow(new IllegalStateException("boom"));
+
+        assertThat(asyncBookDao.getById(2L)).failsWithin(1, TimeUnit.SECONDS);
+    }
+
+    private static <T> Answer<T> slow(T result) {
+        return invocation -> {
+            Thread.sleep(LOOKUP_MILLIS);
+            return result;
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.AuthorDaoImpl;
+import guru.springframework.jdbc.domain.Author;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ActiveProfiles("local")
+@DataJpaTest
+@Import(AuthorDaoImpl.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AuthorPrefixSearchIntegrationTest {
+
+    private static final String FIRST_NAME = "PrefixSeed";
+    private static final int SEEDED_AUTHORS = 50_000;
+
+    @Autowired
+    AuthorDao authorDao;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setUp() {
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < SEEDED_AUTHORS; i++) {
+            Author author = new Author();
+            author.setFirstName(FIRST_NAME);
+            author.setLastName(String.format("Prefix%05d", i));
+            authors.add(author);
+        }
+        authorDao.saveAllAuthors(authors);
+    }
+
+    @AfterAll
+    void tearDown() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM Author a WHERE a.firstName = :first_name")
+                    .setParameter("first_name", FIRST_NAME)
+                    .executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    void testSearchIsLimitedAndOrdered() {
+        List<Author> authors = authorDao.searchAuthorsByLastNamePrefix("Prefix0001", 5);
+
+        assertThat(authors).extracting(Author::getLastName)
+                .containsExactly("Prefix00010", "Prefix00011", "Prefix00012", "Prefix00013", "Prefix00014");
+    }
+
+    @Test
+    void testSearchTreatsWildcardsLiterally() {
+        assertThat(authorDao.searchAuthorsByLastNamePrefix("Prefix_", 5)).isEmpty();
+        assertThat(authorDao.searchAuthorsByLastNamePrefix("%", 5)).isEmpty();
+    }
+
+    @Test
+    void testSearchRejectsInvalidArguments() {
+        assertThatThrownBy(() -> authorDao.searchAuthorsByLastNamePrefix(null, 5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("prefix must not be null");
+        assertThatThrownBy(() -> authorDao.searchAuthorsByLastNamePrefix("Prefix", 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("limit must be at least 1, got 0");
+    }
+
+    @Test
+    void testPrefixSearchUsesNameIndex() {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM author a WHERE a.last_name LIKE ? ORDER BY a.last_name, a.first_name LIMIT 10",
+                "Prefix0001%");
+
+        assertThat(plan).first().extracting(row -> row.get("key")).isEqualTo("author_last_first_name_idx");
+    }
+
+    @Test
+    void testExactNameLookupUsesNameIndex() {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList(
+                "EXPLAIN SELECT * FROM author a WHERE a.first_name = ? AND a.last_name = ?",
+                FIRST_NAME, "Prefix00042");
+
+        assertThat(plan).first().extracting(row -> row.get("key")).isEqualTo("author_last_first_name_idx");
+    }
+}
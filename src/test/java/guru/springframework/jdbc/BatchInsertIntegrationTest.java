@@ -0,0 +1,113 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.AuthorDaoImpl;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.dao.BookDaoImpl;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.internal.bytebuddy.utility.RandomString;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("local")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({AuthorDaoImpl.class, BookDaoImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class BatchInsertIntegrationTest {
+
+    private static final int ROWS = 200;
+
+    @Autowired
+    AuthorDao authorDao;
+
+    @Autowired
+    BookDao bookDao;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void testSaveAllBooksBatchesStatements() {
+        statistics.clear();
+        for (Book book : books(ROWS)) {
+            bookDao.saveNewBook(book);
+        }
+        long singleRowStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        List<Book> saved = bookDao.saveAllBooks(books(ROWS));
+        long batchedStatements = statistics.getPrepareStatementCount();
+
+        assertThat(saved).hasSize(ROWS).allSatisfy(book -> assertThat(book.getId()).isNotNull());
+        assertThat(singleRowStatements).isGreaterThanOrEqualTo(ROWS);
+        assertThat(batchedStatements).isLessThan(singleRowStatements / 10);
+    }
+
+    @Test
+    void testSaveAllAuthors() {
+        List<Author> authors = authors(ROWS);
+
+        statistics.clear();
+        List<Author> saved = authorDao.saveAllAuthors(authors);
+
+        assertThat(saved).hasSize(ROWS).allSatisfy(author -> assertThat(author.getId()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(ROWS / 10);
+    }
+
+    @Test
+    void testSaveAllKeepsCallerEntitiesManaged() {
+        Book loaded = bookDao.getById(3L);
+        Author author = authorDao.getById(1L);
+        String title = "Changed " + RandomString.make();
+        String lastName = "Changed" + RandomString.make();
+
+        bookDao.saveAllBooks(books(ROWS));
+        loaded.setTitle(title);
+        authorDao.saveAllAuthors(authors(ROWS));
+        author.setLastName(lastName);
+
+        // the queries flush the pending changes of the shared persistence context first
+        assertThat(bookDao.findBookByTitle(title).getId()).isEqualTo(3L);
+        assertThat(authorDao.findAuthorByNameCriteria(author.getFirstName(), lastName).getId()).isEqualTo(1L);
+    }
+
+    private List<Author> authors(int count) {
+        List<Author> authors = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Author author = new Author();
+            author.setFirstName("Batch");
+            author.setLastName("Author" + i);
+            authors.add(author);
+        }
+        return authors;
+    }
+
+    private List<Book> books(int count) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new Book("Batch Book " + i, "batch-" + RandomString.make(), "Batch Publisher"));
+        }
+        return books;
+    }
+}
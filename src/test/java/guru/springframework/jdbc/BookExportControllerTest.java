@@ -0,0 +1,111 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.controllers.BookExportController;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.domain.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(BookExportController.class)
+public class BookExportControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @MockBean
+    BookDao bookDao;
+
+    @BeforeEach
+    void setUp() {
+        Book plain = new Book("Clean Code", "978-0132350884", "Prentice Hall");
+        plain.setId(1L);
+        Book quoted = new Book("Patterns, \"Enterprise\" Edition", "978-0321127426", "Addison Wesley");
+        quoted.setId(2L);
+        quoted.setAuthorId(3L);
+
+        doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            List.of(plain, quoted).forEach(action);
+            return null;
+        }).when(bookDao).forEachBook(anyInt(), any());
+    }
+
+    @Test
+    void testExportCsv() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,isbn,title,publisher,author_id\r\n" +
+                        "1,978-0132350884,Clean Code,Prentice Hall,\r\n" +
+                        "2,978-0321127426,\"Patterns, \"\"Enterprise\"\" Edition\",Addison Wesley,3\r\n"));
+        verify(bookDao, never()).forEachBookWithAuthor(anyInt(), any());
+    }
+
+    @Test
+    void testExportNdjsonGzipped() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/books/export")
+                        .param("format", "ndjson")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        List<String> lines = new String(body, StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo("{\"id\":1,\"isbn\":\"978-0132350884\",\"title\":\"Clean Code\"," +
+                "\"publisher\":\"Prentice Hall\",\"authorId\":null}");
+    }
+
+    @Test
+    void testExportWithAuthorsUsesJoinFetch() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/books/export").param("includeAuthors", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,isbn,title,publisher,author_id,author_first_name,author_last_name\r\n"));
+
+        verify(bookDao).forEachBookWithAuthor(anyInt(), any());
+    }
+
+    @Test
+    void testUnknownFormatIsRejected() throws Exception {
+        mockMvc.perform(get("/api/v1/books/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
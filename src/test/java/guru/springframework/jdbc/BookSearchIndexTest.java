@@ -0,0 +1,167 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.BookChangedEvent;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.search.BookSearchHit;
+import guru.springframework.jdbc.search.BookSearchIndex;
+import guru.springframework.jdbc.search.BookSearchPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class BookSearchIndexTest {
+
+    BookDao bookDao;
+    BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bookDao = mock(BookDao.class);
+        List<Book> books = List.of(
+                book(1L, "Spring in Action", "Manning"),
+                book(2L, "Cloud Native Patterns", "Spring Press"),
+                book(3L, "Domain-Driven Design", "Addison Wesley"),
+                book(4L, "Spring Boot in Practice", "Manning"));
+        doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            books.forEach(action);
+            return null;
+        }).when(bookDao).forEachBook(anyInt(), any());
+
+        index = new BookSearchIndex(bookDao, "");
+        index.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.destroy();
+    }
+
+    @Test
+    void testTitleMatchesRankAbovePublisherMatches() {
+        BookSearchPage page = index.search("spring", 0, 10);
+
+        assertThat(page.totalHits()).isEqualTo(3);
+        assertThat(page.hits()).extracting(BookSearchHit::id).containsExactlyInAnyOrder(1L, 2L, 4L);
+        assertThat(page.hits().get(2).id()).isEqualTo(2L);
+        assertThat(page.hits()).extracting(BookSearchHit::score).isSortedAccordingTo((a, b) -> Float.compare(b, a));
+    }
+
+    @Test
+    void testPaging() {
+        BookSearchPage first = index.search("spring", 0, 2);
+        BookSearchPage second = index.search("spring", 1, 2);
+
+        assertThat(first.hits()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.hits()).hasSize(1);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.totalHits()).isEqualTo(3);
+        assertThat(second.hits().get(0).id()).isNotIn(first.hits().get(0).id(), first.hits().get(1).id());
+    }
+
+    @Test
+    void testPagingIsBounded() {
+        assertThat(index.search("spring", 99, 100).hits()).isEmpty();
+
+        assertThatThrownBy(() -> index.search("spring", 0, 101)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.search("spring", 100, 100)).isInstanceOf(IllegalArgumentException.class);
+        // page * size overflows an int
+        assertThatThrownBy(() -> index.search("spring", Integer.MAX_VALUE, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testQuerySyntaxIsTakenLiterally() {
+        assertThat(index.search("Domain-Driven (Design", 0, 10).hits())
+                .extracting(BookSearchHit::id).containsExactly(3L);
+        assertThat(index.search("  ", 0, 10).totalHits()).isZero();
+    }
+
+    @Test
+    void testIndexFollowsSavesAndDeletes() {
+        index.onBookChanged(BookChangedEvent.saved(List.of(book(5L, "Hibernate Tuning", "Apress"))));
+        index.onBookChanged(BookChangedEvent.saved(List.of(book(3L, "Domain-Driven Design Distilled", "Addison Wesley"))));
+        index.onBookChanged(BookChangedEvent.deleted(List.of(1L)));
+
+        assertThat(index.search("hibernate", 0, 10).hits()).extracting(BookSearchHit::id).containsExactly(5L);
+        assertThat(index.search("distilled", 0, 10).hits()).extracting(BookSearchHit::id).containsExactly(3L);
+        assertThat(index.search("design", 0, 10).totalHits()).isEqualTo(1);
+        assertThat(index.search("action", 0, 10).totalHits()).isZero();
+    }
+
+    @Test
+    void testIndexReadsUpsertedBooksBack() throws Exception {
+        doReturn(List.of(book(2L, "Cloud Native Spring", "Manning"), book(6L, "High Performance Java", "Leanpub")))
+                .when(bookDao).findByISBNs(List.of("isbn-2", "isbn-6"));
+
+        index.onBookChanged(BookChangedEvent.upserted(List.of("isbn-2", "isbn-6")));
+
+        awaitTotalHits("performance", 1);
+        assertThat(index.search("native", 0, 10).hits()).extracting(BookSearchHit::publisher)
+                .containsExactly("Manning");
+        // the upsert did not rebuild the index
+        verify(bookDao, times(1)).forEachBook(anyInt(), any());
+    }
+
+    @Test
+    void testBulkRebuildKeepsChangesMadeWhileItRuns() throws Exception {
+        CountDownLatch cursorOpened = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Book> snapshot = List.of(book(1L, "Spring in Action", "Manning"), book(5L, "Reactive Spring", "Leanpub"));
+        doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            cursorOpened.countDown();
+            release.await();
+            snapshot.forEach(action);
+            return null;
+        }).when(bookDao).forEachBook(anyInt(), any());
+
+        index.onBookChanged(BookChangedEvent.bulk());
+        assertThat(cursorOpened.await(5, TimeUnit.SECONDS)).isTrue();
+        index.onBookChanged(BookChangedEvent.saved(List.of(book(1L, "Spring Reloaded", "Manning"))));
+
+        // the previous index keeps serving searches and takes the change right away
+        assertThat(index.search("design", 0, 10).totalHits()).isEqualTo(1);
+        assertThat(index.search("reloaded", 0, 10).hits()).extracting(BookSearchHit::id).containsExactly(1L);
+
+        release.countDown();
+        awaitTotalHits("reactive", 1);
+
+        // the older snapshot of book 1 from the cursor did not win over the change
+        assertThat(index.search("reloaded", 0, 10).hits()).extracting(BookSearchHit::id).containsExactly(1L);
+        assertThat(index.search("action", 0, 10).totalHits()).isZero();
+        assertThat(index.search("design", 0, 10).totalHits()).isZero();
+    }
+
+    private void awaitTotalHits(String text, long totalHits) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (index.search(text, 0, 10).totalHits() != totalHits) {
+            assertThat(System.nanoTime()).as("%d hits for %s in time", totalHits, text).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static Book book(Long id, String title, String publisher) {
+        Book book = new Book(title, "isbn-" + id, publisher);
+        book.setId(id);
+        return book;
+    }
+}
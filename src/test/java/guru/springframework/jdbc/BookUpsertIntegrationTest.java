@@ -0,0 +1,89 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorDaoImpl;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.dao.BookDaoImpl;
+import guru.springframework.jdbc.dao.UpsertResult;
+import guru.springframework.jdbc.domain.Book;
+import jakarta.persistence.NoResultException;
+import org.assertj.core.internal.bytebuddy.utility.RandomString;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the H2 MERGE variant of the upsert, DaoIntegrationTest covers the MySQL statement.
+ */
+@DataJpaTest
+@Import({AuthorDaoImpl.class, BookDaoImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class BookUpsertIntegrationTest {
+
+    @Autowired
+    BookDao bookDao;
+
+    @Test
+    void testUpsertInsertsThenUpdates() {
+        String prefix = "upsert-" + RandomString.make() + "-";
+        List<Book> feed = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            feed.add(new Book("Feed " + i, prefix + i, "Feed Publisher"));
+        }
+
+        assertThat(bookDao.upsertBooks(feed)).isEqualTo(new UpsertResult(1_200, 0));
+
+        List<Book> redelivered = new ArrayList<>(feed.subList(0, 700));
+        redelivered.forEach(book -> book.setPublisher("Renamed Publisher"));
+        redelivered.add(new Book("Feed new", prefix + "new", "Feed Publisher"));
+
+        assertThat(bookDao.upsertBooks(redelivered)).isEqualTo(new UpsertResult(1, 700));
+
+        Book updated = bookDao.findByISBN(prefix + 0);
+        assertThat(updated.getPublisher()).isEqualTo("Renamed Publisher");
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(bookDao.findByISBN(prefix + "new").getVersion()).isZero();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testChunksCommitOnTheirOwnOutsideTransaction() {
+        String prefix = "upsert-" + RandomString.make() + "-";
+        String publisher = "Chunked " + RandomString.make();
+        List<Book> feed = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            feed.add(new Book("Feed " + i, prefix + i, publisher));
+        }
+        // too long for the title column, fails the second chunk
+        feed.get(550).setTitle("x".repeat(300));
+
+        try {
+            assertThatThrownBy(() -> bookDao.upsertBooks(feed)).isInstanceOf(RuntimeException.class);
+
+            assertThat(bookDao.findByISBN(prefix + 0).getTitle()).isEqualTo("Feed 0");
+            assertThatThrownBy(() -> bookDao.findByISBN(prefix + 599)).isInstanceOf(NoResultException.class);
+        } finally {
+            bookDao.deleteBooksByPublisher(publisher);
+        }
+    }
+
+    @Test
+    void testDuplicateIsbnsInOneCallKeepTheLastBook() {
+        String isbn = "upsert-" + RandomString.make();
+
+        UpsertResult result = bookDao.upsertBooks(List.of(new Book("First", isbn, "Feed Publisher"),
+                new Book("Second", isbn, "Feed Publisher")));
+
+        assertThat(result).isEqualTo(new UpsertResult(1, 0));
+        assertThat(bookDao.findByISBN(isbn).getTitle()).isEqualTo("Second");
+    }
+}
@@ -1,11 +1,23 @@
 package guru.springframework.jdbc;
 
+import guru.springframework.jdbc.cache.CacheStatisticsService;
+import guru.springframework.jdbc.dao.AuthorCursor;
 import guru.springframework.jdbc.dao.AuthorDao;
 import guru.springframework.jdbc.dao.AuthorDaoImpl;
 import guru.springframework.jdbc.dao.BookDao;
 import guru.springframework.jdbc.dao.BookDaoImpl;
+import guru.springframework.jdbc.dao.KeysetPage;
+import guru.springframework.jdbc.dao.UpsertResult;
 import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.AuthorName;
 import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.domain.BookSummary;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.NoResultException;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.assertj.core.internal.bytebuddy.utility.RandomString;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,17 +26,25 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Created by jt on 8/28/21.
  */
 @ActiveProfiles("local")
 @DataJpaTest
-@Import({AuthorDaoImpl.class, BookDaoImpl.class})
+@Import({AuthorDaoImpl.class, BookDaoImpl.class, CacheStatisticsService.class})
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 public class DaoIntegrationTest {
     @Autowired
@@ -33,6 +53,12 @@ public class DaoIntegrationTest {
     @Autowired
     BookDao bookDao;
 
+    @Autowired
+    CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    EntityManagerFactory emf;
+
     @Test
     void testFindAllAuthors() {
         List<Author> authors = authorDao.findAll();
@@ -54,6 +80,20 @@ public class DaoIntegrationTest {
         assertThat(fetched).isNotNull();
     }
 
+    @Test
+    void testFindBookByMissingISBN() {
+        assertThatThrownBy(() -> bookDao.findByISBN("missing" + RandomString.make()))
+                .isInstanceOf(NoResultException.class);
+    }
+
+    @Test
+    void testFindBooksByISBNs() {
+        List<Book> books = bookDao.findByISBNs(List.of("978-1617294945", "978-0134494166", "missing"));
+
+        assertThat(books).extracting(Book::getTitle)
+                .containsExactlyInAnyOrder("Spring in Action, 5th Edition", "Clean Code");
+    }
+
     @Test
     void testListAuthorByLastNameLike() {
         List<Author> authors = authorDao.listAuthorByLstNameLike("Wall");
@@ -122,6 +162,33 @@ public class DaoIntegrationTest {
         assertThat(author).isNotNull();
     }
 
+    @Test
+    void testFindAuthorNameById() {
+        AuthorName name = authorDao.findAuthorNameById(1L);
+
+        assertThat(name).isNotNull();
+        assertThat(name.lastName()).isEqualTo("Walls");
+        assertThat(authorDao.findAuthorNameById(-1L)).isNull();
+    }
+
+    @Test
+    void testFindBookSummaries() {
+        List<BookSummary> first = bookDao.findBookSummaries(null, 2);
+        List<BookSummary> next = bookDao.findBookSummaries(first.get(1).id(), 2);
+
+        assertThat(first).hasSize(2);
+        assertThat(first.get(0).isbn()).isNotNull();
+        assertThat(next).isNotEmpty();
+        assertThat(next.get(0).id()).isGreaterThan(first.get(1).id());
+    }
+
+    @Test
+    void testFindBookSummariesRejectsInvalidLimit() {
+        assertThatThrownBy(() -> bookDao.findBookSummaries(null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("limit must be at least 1, got 0");
+    }
+
     @Test
     void testGetAuthor() {
 
@@ -139,10 +206,118 @@ public class DaoIntegrationTest {
         assertThat(books.size()).isGreaterThan(0);
     }
 
+    @Test
+    void testForEachBook() {
+        int total = bookDao.findAllBooks().size();
+        AtomicInteger count = new AtomicInteger();
+
+        bookDao.forEachBook(2, book -> {
+            assertThat(book.getId()).isNotNull();
+            count.incrementAndGet();
+        });
+
+        assertThat(count.get()).isEqualTo(total);
+    }
+
+    // the cursor runs on its own EntityManager, it only sees committed books
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testForEachBookWithAuthorFetchesAuthorsInOneQuery() {
+        Book withoutAuthor = bookDao.saveNewBook(new Book("No Author", "1234" + RandomString.make(), "Self"));
+        try {
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            Map<Long, Book> books = new HashMap<>();
+
+            bookDao.forEachBookWithAuthor(2, book -> {
+                assertThat(Hibernate.isInitialized(book.getAuthor())).isTrue();
+                books.put(book.getId(), book);
+            });
+
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+            assertThat(books.get(withoutAuthor.getId()).getAuthor()).isNull();
+            assertThat(books.values()).filteredOn(book -> "Clean Code".equals(book.getTitle()))
+                    .extracting(book -> book.getAuthor().getLastName())
+                    .containsExactly("Martin");
+        } finally {
+            bookDao.deleteBookById(withoutAuthor.getId());
+        }
+    }
+
+    @Test
+    void testForEachAuthor() {
+        int total = authorDao.findAll().size();
+        AtomicInteger count = new AtomicInteger();
+
+        authorDao.forEachAuthor(2, author -> count.incrementAndGet());
+
+        assertThat(count.get()).isEqualTo(total);
+    }
+
+    @Test
+    void testForEachRejectsNonPositiveFetchSize() {
+        assertThatThrownBy(() -> bookDao.forEachBook(0, book -> {}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> authorDao.forEachAuthor(-1, author -> {}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testFindAuthorsAfterPagesThroughNullLastNames() {
+        for (int i = 0; i < 2; i++) {
+            Author author = new Author();
+            author.setFirstName("Nameless");
+            authorDao.saveNewAuthor(author);
+        }
+        int total = authorDao.findAll().size();
+        List<Long> ids = new ArrayList<>();
+        AuthorCursor cursor = null;
+        KeysetPage<Author, AuthorCursor> page;
+        do {
+            page = authorDao.findAuthorsAfter(cursor, 1);
+            page.content().forEach(author -> ids.add(author.getId()));
+            cursor = page.nextCursor();
+        } while (page.hasNext());
+
+        assertThat(ids).hasSize(total).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testKeysetPagingRejectsNonPositiveLimit() {
+        assertThatThrownBy(() -> bookDao.findBooksAfter(null, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> authorDao.findAuthorsAfter(null, -1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AuthorCursor("Walls", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testFindBooksWithAuthorsUsesOneQueryPerPage() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        KeysetPage<Book, Long> page = bookDao.findBooksWithAuthors(null, 500);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(page.content()).isNotEmpty()
+                .allSatisfy(book -> assertThat(Hibernate.isInitialized(book.getAuthor())).isTrue());
+        assertThat(page.content()).filteredOn(book -> "Clean Code".equals(book.getTitle()))
+                .extracting(book -> book.getAuthor().getLastName())
+                .containsExactly("Martin");
+    }
+
+    @Test
+    void testFindBooksByAuthor() {
+        Author author = authorDao.findAuthorByName("Craig", "Walls");
+
+        List<Book> books = authorDao.findBooksByAuthor(author.getId());
+
+        assertThat(books).hasSizeGreaterThanOrEqualTo(3)
+                .allSatisfy(book -> assertThat(book.getAuthorId()).isEqualTo(author.getId()));
+    }
+
     @Test
     void testDeleteBook() {
         Book book = new Book();
-        book.setIsbn("1234");
+        book.setIsbn("1234" + RandomString.make());
         book.setPublisher("Self");
         book.setTitle("my book");
         Book saved = bookDao.saveNewBook(book);
@@ -154,10 +329,65 @@ public class DaoIntegrationTest {
         assertThat(deleted).isNull();
     }
 
+    @Test
+    void testDeleteMissingBookFails() {
+        assertThatThrownBy(() -> bookDao.deleteBookById(Long.MAX_VALUE))
+                .isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testDeleteBookKeepsOtherBooksCached() {
+        bookDao.getById(3L);
+        Book saved = bookDao.saveNewBook(new Book("Short Lived", "1234" + RandomString.make(), "Self"));
+        bookDao.deleteBookById(saved.getId());
+        long hits = cacheStatisticsService.getRegionStatistics(CacheStatisticsService.BOOK_REGION).hits();
+
+        bookDao.getById(3L);
+
+        assertThat(cacheStatisticsService.getRegionStatistics(CacheStatisticsService.BOOK_REGION).hits())
+                .isGreaterThan(hits);
+        assertThat(bookDao.getById(saved.getId())).isNull();
+    }
+
+    @Test
+    void testDeleteBooksByIdsEvictsCache() {
+        Book saved = bookDao.saveNewBook(new Book("Bulk", "bulk-" + RandomString.make(), "Bulk Publisher"));
+        assertThat(bookDao.getById(saved.getId())).isNotNull();
+
+        int deleted = bookDao.deleteBooksByIds(List.of(saved.getId()));
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(bookDao.getById(saved.getId())).isNull();
+    }
+
+    @Test
+    void testUpdateAndDeleteBooksByPublisher() {
+        String publisher = "Bulk " + RandomString.make();
+        String renamed = "Renamed " + RandomString.make();
+        bookDao.saveAllBooks(List.of(new Book("Bulk 1", "bulk-" + RandomString.make(), publisher),
+                new Book("Bulk 2", "bulk-" + RandomString.make(), publisher)));
+
+        assertThat(bookDao.updatePublisher(publisher, renamed)).isEqualTo(2);
+        assertThat(bookDao.deleteBooksByPublisher(publisher)).isZero();
+        assertThat(bookDao.deleteBooksByPublisher(renamed)).isEqualTo(2);
+    }
+
+    @Test
+    void testDeleteAuthorsByIds() {
+        Author author = new Author();
+        author.setFirstName("bulk");
+        author.setLastName("delete");
+        Author saved = authorDao.saveNewAuthor(author);
+
+        assertThat(authorDao.deleteAuthorsByIds(List.of(saved.getId()))).isEqualTo(1);
+        assertThat(authorDao.getById(saved.getId())).isNull();
+    }
+
     @Test
     void updateBookTest() {
         Book book = new Book();
-        book.setIsbn("1234");
+        book.setIsbn("1234" + RandomString.make());
         book.setPublisher("Self");
         book.setTitle("my book");
 
@@ -175,10 +405,57 @@ public class DaoIntegrationTest {
         assertThat(fetched.getTitle()).isEqualTo("New Book");
     }
 
+    @Test
+    void testUpsertBooks() {
+        String isbn = "1234" + RandomString.make();
+        Book book = new Book("Upsert", isbn, "Feed Publisher");
+
+        assertThat(bookDao.upsertBooks(List.of(book))).isEqualTo(new UpsertResult(1, 0));
+        book.setTitle("Upsert Again");
+        assertThat(bookDao.upsertBooks(List.of(book, new Book("Upsert New", "1234" + RandomString.make(), "Feed"))))
+                .isEqualTo(new UpsertResult(1, 1));
+        assertThat(bookDao.findByISBN(isbn).getTitle()).isEqualTo("Upsert Again");
+    }
+
+    @Test
+    void testPatchBook() {
+        Book saved = bookDao.saveNewBook(new Book("Patch", "1234" + RandomString.make(), "Old Publisher"));
+
+        Book patched = bookDao.patchBook(saved.getId(), Map.of("publisher", "New Publisher", "authorId", 1));
+
+        assertThat(patched.getPublisher()).isEqualTo("New Publisher");
+        assertThat(patched.getAuthorId()).isEqualTo(1L);
+        assertThat(patched.getTitle()).isEqualTo("Patch");
+        assertThat(bookDao.getById(saved.getId()).getPublisher()).isEqualTo("New Publisher");
+    }
+
+    @Test
+    void testPatchBookRejectsUnknownFields() {
+        Book saved = bookDao.saveNewBook(new Book("Patch", "1234" + RandomString.make(), "Old Publisher"));
+
+        assertThatThrownBy(() -> bookDao.patchBook(saved.getId(), Map.of("id", 42L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookDao.patchBook(saved.getId(), Map.of("title", 42)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testRejectedPatchLeavesBookUnchanged() {
+        Book saved = bookDao.saveNewBook(new Book("Patch", "1234" + RandomString.make(), "Old Publisher"));
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("publisher", "New Publisher");
+        changes.put("authorId", "not a number");
+
+        assertThatThrownBy(() -> bookDao.patchBook(saved.getId(), changes))
+                .isInstanceOf(IllegalArgumentException.class);
+        // the DAOs join the test transaction, a partially applied patch would show on the managed book
+        assertThat(bookDao.getById(saved.getId()).getPublisher()).isEqualTo("Old Publisher");
+    }
+
     @Test
     void testSaveBook() {
         Book book = new Book();
-        book.setIsbn("1234");
+        book.setIsbn("1234" + RandomString.make());
         book.setPublisher("Self");
         book.setTitle("my book");
 
@@ -212,6 +489,38 @@ public class DaoIntegrationTest {
         assertThat(book).isNotNull();
     }
 
+    @Test
+    void testReadsJoinTransactionalEntityManager() {
+        Book first = bookDao.getById(3L);
+        Book second = bookDao.getById(3L);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    // outside the test transaction every DAO call has its own persistence context
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testGetBookHitsSecondLevelCache() {
+        bookDao.getById(3L);
+        long hits = cacheStatisticsService.getRegionStatistics(CacheStatisticsService.BOOK_REGION).hits();
+
+        bookDao.getById(3L);
+
+        assertThat(cacheStatisticsService.getRegionStatistics(CacheStatisticsService.BOOK_REGION).hits())
+                .isGreaterThan(hits);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testFindAuthorByNameHitsQueryCache() {
+        authorDao.findAuthorByName("Craig", "Walls");
+        long hits = cacheStatisticsService.getQueryCacheStatistics().hits();
+
+        authorDao.findAuthorByName("Craig", "Walls");
+
+        assertThat(cacheStatisticsService.getQueryCacheStatistics().hits()).isGreaterThan(hits);
+    }
+
     @Test
     void testGetBook() {
         Book book = bookDao.getById(3L);
@@ -0,0 +1,231 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.dao.OptimisticLockConflictException;
+import guru.springframework.jdbc.domain.Book;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives BookDao and AuthorDao from many threads with a configurable read/write mix and reports throughput,
+ * latency histograms and error, optimistic conflict and lock timeout rates.
+ * <p>
+ * Reads are primary key, isbn, keyset page and author name lookups. Writes are patches of seeded books and
+ * inserts of new ones. Seeded and inserted books are deleted again after the run.
+ */
+final class DaoLoadHarness {
+
+    // MySQL ER_LOCK_WAIT_TIMEOUT and H2 LOCK_TIMEOUT_1
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int H2_LOCK_TIMEOUT = 50200;
+    private static final Duration[] BUCKETS = {
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(20), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(200),
+            Duration.ofMillis(500), Duration.ofSeconds(1)
+    };
+
+    record Settings(int threads, Duration warmup, Duration duration, double readRatio, int seedBooks) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("loadtest.threads", Runtime.getRuntime().availableProcessors() * 2),
+                    Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 5)),
+                    Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30)),
+                    Double.parseDouble(System.getProperty("loadtest.read-ratio", "0.9")),
+                    Integer.getInteger("loadtest.seed-books", 10_000));
+        }
+    }
+
+    record Result(Settings settings, Duration elapsed, long operations, long errors, long conflicts,
+                  long lockTimeouts, HistogramSnapshot reads, HistogramSnapshot writes) {
+
+        // measured, the workers finish their last operation after the deadline
+        double throughputPerSecond() {
+            return operations / (elapsed.toNanos() / 1_000_000_000.0);
+        }
+
+        double errorRate() {
+            return operations == 0 ? 0 : (double) errors / operations;
+        }
+
+        String report() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("threads=%d read_ratio=%.2f duration=%ds elapsed=%dms%n",
+                    settings.threads(), settings.readRatio(), settings.duration().toSeconds(), elapsed.toMillis()));
+            report.append(String.format("operations=%d throughput=%.1f/s errors=%d (%.3f%%) conflicts=%d " +
+                            "lock_timeouts=%d%n", operations, throughputPerSecond(), errors, errorRate() * 100,
+                    conflicts, lockTimeouts));
+            appendHistogram(report, "reads", reads);
+            appendHistogram(report, "writes", writes);
+            return report.toString();
+        }
+
+        private static void appendHistogram(StringBuilder report, String name, HistogramSnapshot snapshot) {
+            report.append(String.format("%s: count=%d mean=%.2fms max=%.2fms", name, snapshot.count(),
+                    snapshot.mean(TimeUnit.MILLISECONDS), snapshot.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                report.append(String.format(" p%s=%.2fms", percentile.percentile() * 100,
+                        percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            report.append(System.lineSeparator());
+            for (CountAtBucket bucket : snapshot.histogramCounts()) {
+                report.append(String.format("  <= %6.0fms %d%n", bucket.bucket(TimeUnit.MILLISECONDS),
+                        (long) bucket.count()));
+            }
+        }
+    }
+
+    private final BookDao bookDao;
+    private final AuthorDao authorDao;
+    private final Settings settings;
+
+    DaoLoadHarness(BookDao bookDao, AuthorDao authorDao, Settings settings) {
+        this.bookDao = bookDao;
+        this.authorDao = authorDao;
+        this.settings = settings;
+    }
+
+    Result run() throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<Book> seeded = new ArrayList<>();
+        for (int i = 0; i < settings.seedBooks(); i++) {
+            seeded.add(new Book("Load Book " + i, "load-" + runId + "-" + i, "Load Publisher"));
+        }
+        List<Book> books = bookDao.saveAllBooks(seeded);
+        List<Long> created = new ArrayList<>();
+        try {
+            runPhase(books, runId, settings.warmup(), created);
+            return runPhase(books, runId, settings.duration(), created);
+        } finally {
+            List<Long> ids = new ArrayList<>(created);
+            books.forEach(book -> ids.add(book.getId()));
+            bookDao.deleteBooksByIds(ids);
+        }
+    }
+
+    private Result runPhase(List<Book> books, String runId, Duration duration, List<Long> created) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Timer reads = timer(registry, "reads");
+        Timer writes = timer(registry, "writes");
+        LongAdder operations = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder conflicts = new LongAdder();
+        LongAdder lockTimeouts = new LongAdder();
+
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(settings.threads());
+        try {
+            List<Future<List<Long>>> workers = new ArrayList<>();
+            for (int t = 0; t < settings.threads(); t++) {
+                workers.add(executor.submit(() -> {
+                    List<Long> inserted = new ArrayList<>();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        boolean read = random.nextDouble() < settings.readRatio();
+                        long start = System.nanoTime();
+                        try {
+                            if (read) {
+                                read(books, random);
+                            } else {
+                                write(books, runId, random, inserted);
+                            }
+                        } catch (RuntimeException e) {
+                            if (hasCause(e, OptimisticLockConflictException.class)) {
+                                conflicts.increment();
+                            } else if (isLockTimeout(e)) {
+                                lockTimeouts.increment();
+                            } else {
+                                errors.increment();
+                            }
+                        }
+                        (read ? reads : writes).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        operations.increment();
+                    }
+                    return inserted;
+                }));
+            }
+            for (Future<List<Long>> worker : workers) {
+                created.addAll(worker.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        return new Result(settings, elapsed, operations.sum(), errors.sum(), conflicts.sum(), lockTimeouts.sum(),
+                reads.takeSnapshot(), writes.takeSnapshot());
+    }
+
+    private void read(List<Book> books, ThreadLocalRandom random) {
+        Book book = books.get(random.nextInt(books.size()));
+        switch (random.nextInt(4)) {
+            case 0 -> bookDao.getById(book.getId());
+            case 1 -> bookDao.findByISBN(book.getIsbn());
+            case 2 -> bookDao.findBookSummaries(book.getId(), 20);
+            default -> authorDao.findAuthorNameById(random.nextLong(1, 4));
+        }
+    }
+
+    private void write(List<Book> books, String runId, ThreadLocalRandom random, List<Long> inserted) {
+        if (random.nextBoolean()) {
+            Book book = books.get(random.nextInt(books.size()));
+            bookDao.patchBook(book.getId(), Map.of("publisher", "Load Publisher " + random.nextInt(100)));
+        } else {
+            Book book = bookDao.saveNewBook(new Book("Load Insert", "load-" + runId + "-" +
+                    Thread.currentThread().getId() + "-" + System.nanoTime(), "Load Publisher"));
+            inserted.add(book.getId());
+        }
+    }
+
+    private static Timer timer(SimpleMeterRegistry registry, String name) {
+        return Timer.builder(name)
+                .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                .serviceLevelObjectives(BUCKETS)
+                // one histogram over the whole phase instead of the default rotating two minute window
+                .distributionStatisticExpiry(Duration.ofDays(1))
+                .distributionStatisticBufferLength(1)
+                .register(registry);
+    }
+
+    private static boolean isLockTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LockTimeoutException || cause instanceof PessimisticLockException
+                    || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && (sqlException.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT
+                    || sqlException.getErrorCode() == H2_LOCK_TIMEOUT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCause(Throwable e, Class<? extends Throwable> type) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.AuthorDaoImpl;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.dao.BookDaoImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test against the embedded H2 database in MySQL mode, run with
+ * {@code ./mvnw test -Dtest=DaoLoadTest -Dloadtest=true}, see README for the settings.
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "logging.level.org.hibernate.type.descriptor.sql=warn",
+        "spring.datasource.hikari.maximum-pool-size=${loadtest.pool-size:20}"
+})
+@Import({AuthorDaoImpl.class, BookDaoImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class DaoLoadTest {
+    private static final Logger log = LoggerFactory.getLogger(DaoLoadTest.class);
+
+    @Autowired
+    AuthorDao authorDao;
+
+    @Autowired
+    BookDao bookDao;
+
+    @Test
+    void testMixedReadWriteLoad() throws Exception {
+        DaoLoadHarness.Settings settings = DaoLoadHarness.Settings.fromSystemProperties();
+        DaoLoadHarness.Result result = new DaoLoadHarness(bookDao, authorDao, settings).run();
+
+        log.info("DAO load test\n{}", result.report());
+
+        assertThat(result.operations()).isPositive();
+        assertThat(result.errorRate())
+                .isLessThanOrEqualTo(Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")));
+    }
+}
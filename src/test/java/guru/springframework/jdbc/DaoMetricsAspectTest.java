@@ -0,0 +1,68 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.metrics.DaoCallCounters;
+import guru.springframework.jdbc.metrics.DaoMetricsAspect;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DaoMetricsAspectTest {
+
+    SimpleMeterRegistry registry;
+    BookDao bookDao;
+    BookDao instrumented;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        bookDao = mock(BookDao.class);
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(bookDao);
+        factory.addInterface(BookDao.class);
+        factory.addAspect(new DaoMetricsAspect(registry, Duration.ofMillis(500)));
+        instrumented = factory.getProxy();
+    }
+
+    @Test
+    void testRecordsLatencyRowsStatementsAndEntities() {
+        when(bookDao.findByISBNs(anyCollection())).thenAnswer(invocation -> {
+            DaoCallCounters.current().statementExecuted();
+            DaoCallCounters.current().entityLoaded();
+            DaoCallCounters.current().entityLoaded();
+            return List.of(new Book(), new Book());
+        });
+
+        instrumented.findByISBNs(List.of("1", "2"));
+        instrumented.findByISBNs(List.of("3", "4"));
+
+        assertThat(registry.get("dao.method").tag("method", "findByISBNs").timer().count()).isEqualTo(2);
+        assertThat(registry.get("dao.method.rows").tag("method", "findByISBNs").summary().totalAmount())
+                .isEqualTo(4);
+        assertThat(registry.get("dao.method.statements").tag("method", "findByISBNs").summary().max())
+                .isEqualTo(1);
+        assertThat(registry.get("dao.method.entities").tag("method", "findByISBNs").summary().totalAmount())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void testCountsErrors() {
+        when(bookDao.getById(1L)).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(() -> instrumented.getById(1L)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(registry.get("dao.method.errors").tag("method", "getById").counter().count()).isEqualTo(1);
+        assertThat(registry.get("dao.method").tag("method", "getById").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,84 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorCursor;
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.AuthorDaoImpl;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.dao.BookDaoImpl;
+import guru.springframework.jdbc.dao.KeysetPage;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("local")
+@DataJpaTest
+@Import({AuthorDaoImpl.class, BookDaoImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class KeysetPaginationIntegrationTest {
+
+    private static final String PUBLISHER = "Keyset Seed";
+    private static final int SEEDED_BOOKS = 100_000;
+    private static final int PAGE_SIZE = 1_000;
+
+    @Autowired
+    AuthorDao authorDao;
+
+    @Autowired
+    BookDao bookDao;
+
+    @Test
+    void testFindBooksAfterWalksSeededTable() {
+        List<Book> seed = new ArrayList<>();
+        for (int i = 0; i < SEEDED_BOOKS; i++) {
+            seed.add(new Book("Keyset Book " + i, "keyset-" + i + "-" + System.nanoTime(), PUBLISHER));
+        }
+        // the DAOs join the test transaction, so the seeded rows are rolled back afterwards
+        bookDao.saveAllBooks(seed);
+
+        int total = bookDao.findAllBooks().size();
+        List<Long> ids = new ArrayList<>();
+        Long cursor = null;
+        KeysetPage<Book, Long> page;
+        do {
+            page = bookDao.findBooksAfter(cursor, PAGE_SIZE);
+            assertThat(page.content().size()).isLessThanOrEqualTo(PAGE_SIZE);
+            page.content().forEach(book -> ids.add(book.getId()));
+            cursor = page.nextCursor();
+        } while (page.hasNext());
+
+        assertThat(ids).hasSize(total).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void testFindAuthorsAfterOrdersByLastNameThenId() {
+        List<Author> authors = authorDao.findAll();
+        List<Long> ids = new ArrayList<>();
+        String previousLastName = null;
+        AuthorCursor cursor = null;
+        KeysetPage<Author, AuthorCursor> page;
+        do {
+            page = authorDao.findAuthorsAfter(cursor, 2);
+            for (Author author : page.content()) {
+                if (previousLastName != null) {
+                    // database collation is case insensitive
+                    assertThat(author.getLastName().compareToIgnoreCase(previousLastName)).isGreaterThanOrEqualTo(0);
+                }
+                previousLastName = author.getLastName();
+                ids.add(author.getId());
+            }
+            cursor = page.nextCursor();
+        } while (page.hasNext());
+
+        assertThat(ids).hasSize(authors.size()).doesNotHaveDuplicates();
+    }
+}
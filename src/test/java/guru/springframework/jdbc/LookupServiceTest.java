@@ -0,0 +1,169 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorChangedEvent;
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.BookChangedEvent;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.datasource.ReplicaRouting;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.Book;
+import guru.springframework.jdbc.lookup.AuthorLookupService;
+import guru.springframework.jdbc.lookup.BookLookupService;
+import jakarta.persistence.NoResultException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LookupServiceTest {
+
+    private static final int CALLERS = 50;
+    private static final long LOOKUP_MILLIS = 300;
+
+    BookDao bookDao;
+    AuthorDao authorDao;
+    ExecutorService executor;
+    BookLookupService bookLookup;
+    AuthorLookupService authorLookup;
+
+    @BeforeEach
+    void setUp() {
+        bookDao = mock(BookDao.class);
+        authorDao = mock(AuthorDao.class);
+        executor = Executors.newFixedThreadPool(CALLERS);
+        bookLookup = new BookLookupService(bookDao, Duration.ofMinutes(1), 1_000);
+        authorLookup = new AuthorLookupService(authorDao, Duration.ofMinutes(1), 1_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentLookupsShareOneQuery() throws Exception {
+        Book book = new Book("Domain-Driven Design", "978-0321125217", "Addison Wesley");
+        when(bookDao.findByISBN("978-0321125217")).thenAnswer(slow(() -> book));
+
+        List<Optional<Book>> results = concurrently(() -> bookLookup.findByIsbn("978-0321125217"));
+
+        assertThat(results).hasSize(CALLERS).allSatisfy(result -> assertThat(result).containsSame(book));
+        verify(bookDao, times(1)).findByISBN("978-0321125217");
+    }
+
+    @Test
+    void testMissIsRememberedUntilBookIsSaved() throws Exception {
+        when(bookDao.findByISBN("missing")).thenAnswer(slow(() -> {
+            throw new NoResultException("No book found for isbn missing");
+        }));
+
+        List<Optional<Book>> results = concurrently(() -> bookLookup.findByIsbn("missing"));
+        assertThat(results).hasSize(CALLERS).allSatisfy(result -> assertThat(result).isEmpty());
+        assertThat(bookLookup.findByIsbn("missing")).isEmpty();
+        verify(bookDao, times(1)).findByISBN("missing");
+
+        Book saved = new Book("Missing No More", "missing", "Self Published");
+        doReturn(saved).when(bookDao).findByISBN("missing");
+        bookLookup.onBookChanged(BookChangedEvent.saved(List.of(saved)));
+
+        assertThat(bookLookup.findByIsbn("missing")).containsSame(saved);
+        verify(bookDao, times(2)).findByISBN("missing");
+    }
+
+    @Test
+    void testAuthorMissIsRememberedUntilAuthorIsSaved() throws Exception {
+        when(authorDao.findAuthorByName("Eric", "Evans")).thenAnswer(slow(() -> {
+            throw new NoResultException();
+        }));
+
+        List<Optional<Author>> results = concurrently(() -> authorLookup.findByName("Eric", "Evans"));
+        assertThat(results).hasSize(CALLERS).allSatisfy(result -> assertThat(result).isEmpty());
+        verify(authorDao, times(1)).findAuthorByName("Eric", "Evans");
+
+        Author author = new Author();
+        author.setFirstName("Eric");
+        author.setLastName("Evans");
+        doReturn(author).when(authorDao).findAuthorByName("Eric", "Evans");
+        authorLookup.onAuthorChanged(AuthorChangedEvent.saved(List.of(author)));
+
+        assertThat(authorLookup.findByName("Eric", "Evans")).containsSame(author);
+        verify(authorDao, times(2)).findAuthorByName("Eric", "Evans");
+    }
+
+    @Test
+    void testLookupsReadThePrimary() {
+        Book book = new Book("Domain-Driven Design", "978-0321125217", "Addison Wesley");
+        // the DAO marks its reads for the replica, the lookup has to override that
+        when(bookDao.findByISBN("978-0321125217"))
+                .thenAnswer(invocation -> ReplicaRouting.readOnly(ReplicaRouting::isReadOnly) ? null : book);
+
+        assertThat(bookLookup.findByIsbn("978-0321125217")).containsSame(book);
+    }
+
+    @Test
+    void testFailuresAreSharedButNotRemembered() throws Exception {
+        when(bookDao.findBookByTitle("Flaky")).thenAnswer(slow(() -> {
+            throw new IllegalStateException("connection reset");
+        }));
+
+        List<Future<Optional<Book>>> futures = submitConcurrently(() -> bookLookup.findByTitle("Flaky"));
+        for (Future<Optional<Book>> future : futures) {
+            assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+        verify(bookDao, times(1)).findBookByTitle("Flaky");
+
+        assertThatThrownBy(() -> bookLookup.findByTitle("Flaky")).isInstanceOf(IllegalStateException.class);
+        verify(bookDao, times(2)).findBookByTitle("Flaky");
+    }
+
+    private <T> List<T> concurrently(Callable<T> lookup) throws Exception {
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : submitConcurrently(lookup)) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private <T> List<Future<T>> submitConcurrently(Callable<T> lookup) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(CALLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> {
+                ready.countDown();
+                start.await();
+                return lookup.call();
+            }));
+        }
+        ready.await();
+        start.countDown();
+        return futures;
+    }
+
+    private static <T> Answer<T> slow(Callable<T> result) {
+        return invocation -> {
+            Thread.sleep(LOOKUP_MILLIS);
+            return result.call();
+        };
+    }
+}
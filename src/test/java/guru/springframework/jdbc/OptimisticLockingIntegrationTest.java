@@ -0,0 +1,115 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.dao.AuthorDao;
+import guru.springframework.jdbc.dao.AuthorDaoImpl;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.dao.BookDaoImpl;
+import guru.springframework.jdbc.dao.OptimisticLockConflictException;
+import guru.springframework.jdbc.domain.Author;
+import guru.springframework.jdbc.domain.Book;
+import org.assertj.core.internal.bytebuddy.utility.RandomString;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs outside the test transaction, the DAO calls commit on their own connections like concurrent editors.
+ */
+@ActiveProfiles("local")
+@DataJpaTest
+@Import({AuthorDaoImpl.class, BookDaoImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OptimisticLockingIntegrationTest {
+
+    private static final int WRITERS = 8;
+    private static final int UPDATES_PER_WRITER = 25;
+
+    @Autowired
+    AuthorDao authorDao;
+
+    @Autowired
+    BookDao bookDao;
+
+    @Test
+    void testStaleBookUpdateIsRejected() {
+        Book saved = bookDao.saveNewBook(new Book("Stale", "1234" + RandomString.make(), "Lock Publisher"));
+        try {
+            Book first = bookDao.getById(saved.getId());
+            Book second = bookDao.getById(saved.getId());
+
+            first.setTitle("First Writer");
+            Book updated = bookDao.updateBook(first);
+            second.setTitle("Second Writer");
+
+            assertThat(updated.getVersion()).isEqualTo(saved.getVersion() + 1);
+            assertThatThrownBy(() -> bookDao.updateBook(second))
+                    .isInstanceOf(OptimisticLockConflictException.class);
+            assertThat(bookDao.getById(saved.getId()).getTitle()).isEqualTo("First Writer");
+        } finally {
+            bookDao.deleteBookById(saved.getId());
+        }
+    }
+
+    @Test
+    void testStaleAuthorUpdateIsRejected() {
+        Author author = new Author();
+        author.setFirstName("Stale");
+        author.setLastName("Author");
+        Author saved = authorDao.saveNewAuthor(author);
+        try {
+            Author first = authorDao.getById(saved.getId());
+            Author second = authorDao.getById(saved.getId());
+
+            first.setLastName("First");
+            authorDao.updateAuthor(first);
+            second.setLastName("Second");
+
+            assertThatThrownBy(() -> authorDao.updateAuthor(second))
+                    .isInstanceOf(OptimisticLockConflictException.class);
+        } finally {
+            authorDao.deleteAuthorById(saved.getId());
+        }
+    }
+
+    @Test
+    void testConcurrentRetriedUpdatesLoseNothing() throws Exception {
+        Book saved = bookDao.saveNewBook(new Book("", "1234" + RandomString.make(), "Lock Publisher"));
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < WRITERS; i++) {
+                writers.add(executor.submit(() -> {
+                    for (int j = 0; j < UPDATES_PER_WRITER; j++) {
+                        bookDao.updateBookWithRetry(saved.getId(), book -> book.setTitle(book.getTitle() + "x"),
+                                WRITERS * UPDATES_PER_WRITER);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+
+            Book result = bookDao.getById(saved.getId());
+            assertThat(result.getTitle()).hasSize(WRITERS * UPDATES_PER_WRITER);
+            assertThat(result.getVersion()).isEqualTo(saved.getVersion() + WRITERS * UPDATES_PER_WRITER);
+        } finally {
+            executor.shutdownNow();
+            bookDao.deleteBookById(saved.getId());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package guru.springframework.jdbc;
+
+import guru.springframework.jdbc.config.ReplicaDataSourceConfig;
+import guru.springframework.jdbc.dao.AuthorDaoImpl;
+import guru.springframework.jdbc.dao.BookDao;
+import guru.springframework.jdbc.dao.BookDaoImpl;
+import guru.springframework.jdbc.datasource.ReplicaLagProbe;
+import guru.springframework.jdbc.domain.Book;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.NoResultException;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two H2 databases stand in for the MySQL primary and replica. Nothing replicates between them, so a row
+ * inserted into only one of them shows which pool a DAO call used.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingIntegrationTest.PRIMARY_URL,
+        "app.datasource.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+        "app.datasource.replica.lag-query=SELECT lag_seconds FROM replica_lag",
+        "app.datasource.replica.lag-column=lag_seconds",
+        "app.datasource.replica.max-lag=5s",
+        "app.datasource.replica.lag-check-interval=50ms"
+})
+@Import({ReplicaDataSourceConfig.class, AuthorDaoImpl.class, BookDaoImpl.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReplicaRoutingIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1;MODE=MYSQL;DATABASE_TO_LOWER=TRUE;" +
+            "CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;MODE=MYSQL;DATABASE_TO_LOWER=TRUE;" +
+            "CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+    private static final String REPLICA_ONLY_TITLE = "Replica Only";
+
+    static JdbcTemplate replica;
+
+    @Autowired
+    BookDao bookDao;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ReplicaLagProbe lagProbe;
+
+    @BeforeAll
+    static void migrateReplica() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "password");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        replica = new JdbcTemplate(dataSource);
+        replica.execute("create table if not exists replica_lag (lag_seconds bigint)");
+        replica.update("delete from replica_lag");
+        replica.update("insert into replica_lag (lag_seconds) values (0)");
+        replica.update("insert into book (id, isbn, publisher, title, version) values (-1, 'replica-only', " +
+                "'Replica', ?, 0)", REPLICA_ONLY_TITLE);
+    }
+
+    @BeforeEach
+    void awaitReplica() throws InterruptedException {
+        awaitReplicaUsable(true);
+    }
+
+    @Test
+    void testReadsOutsideTransactionUseReplica() {
+        assertThat(bookDao.findBookByTitle(REPLICA_ONLY_TITLE).getId()).isEqualTo(-1L);
+    }
+
+    @Test
+    void testWritesUsePrimary() {
+        Book saved = bookDao.saveNewBook(new Book("Primary Only", "primary-only", "Primary"));
+        try {
+            assertThat(replica.queryForObject("select count(*) from book where id = ?", Long.class, saved.getId()))
+                    .isZero();
+            assertThatThrownBy(() -> bookDao.findBookByTitle("Primary Only")).isInstanceOf(NoResultException.class);
+        } finally {
+            bookDao.deleteBookById(saved.getId());
+        }
+    }
+
+    @Test
+    void testReplicaReadsDoNotFillSecondLevelCache() {
+        assertThat(bookDao.getById(-1L)).isNotNull();
+        assertThat(emf.getCache().contains(Book.class, -1L)).isFalse();
+
+        // the row only exists on the replica, a cached copy would be served to the primary transaction
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        assertThat(transactionTemplate.execute(status -> bookDao.getById(-1L))).isNull();
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() throws InterruptedException {
+        replica.update("update replica_lag set lag_seconds = 60");
+        try {
+            awaitReplicaUsable(false);
+            assertThatThrownBy(() -> bookDao.findBookByTitle(REPLICA_ONLY_TITLE))
+                    .isInstanceOf(NoResultException.class);
+        } finally {
+            replica.update("update replica_lag set lag_seconds = 0");
+        }
+    }
+
+    @Test
+    void testFallbackReadsFillSecondLevelCache() throws InterruptedException {
+        Book saved = bookDao.saveNewBook(new Book("Primary Cached", "primary-cached", "Primary"));
+        replica.update("update replica_lag set lag_seconds = 60");
+        try {
+            awaitReplicaUsable(false);
+            emf.getCache().evict(Book.class, saved.getId());
+
+            assertThat(bookDao.getById(saved.getId())).isNotNull();
+            assertThat(emf.getCache().contains(Book.class, saved.getId())).isTrue();
+        } finally {
+            replica.update("update replica_lag set lag_seconds = 0");
+            bookDao.deleteBookById(saved.getId());
+        }
+    }
+
+    // the lag is checked in the background
+    private void awaitReplicaUsable(boolean usable) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lagProbe.isReplicaUsable() != usable) {
+            assertThat(System.nanoTime()).as("replica usable = %s in time", usable).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}